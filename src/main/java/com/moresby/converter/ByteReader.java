@@ -0,0 +1,204 @@
+/*
+ * Moresby Coffee Bean
+ *
+ * Copyright (c) 2012, Barnabas Sudy (barnabas.sudy@gmail.com)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those
+ * of the authors and should not be interpreted as representing official policies,
+ * either expressed or implied, of the FreeBSD Project.
+ */
+package com.moresby.converter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reusable cursor which reads the values written by the binary converters of {@link Converters}
+ * (e.g. {@link Converters#INT_TO_BYTE}) sequentially from a packed byte array or {@link ByteBuffer}.
+ * The reader does not copy the bytes, does not change the position of the buffer and does not
+ * allocate anything per value.
+ *
+ * <p>The class is not thread safe.</p>
+ *
+ * @author Barnabas Sudy (barnabas.sudy@gmail.com)
+ * @since 2012
+ */
+public final class ByteReader {
+
+    /** The array which is read or <tt>null</tt> if a buffer without accessible array is read. */
+    private byte[] bytes;
+
+    /** The buffer which is read if it has no accessible array, <tt>null</tt> otherwise. */
+    private ByteBuffer buffer;
+
+    /** The index of the next byte to read. */
+    private int position;
+
+    /** The index in the backing array of the first byte of a heap buffer, 0 otherwise. */
+    private int base;
+
+    /** The index after the last readable byte. */
+    private int limit;
+
+    /**
+     * Creates a reader without array. {@link #reset(byte[], int, int)} has to be called before reading.
+     */
+    public ByteReader() {
+        this(new byte[0]);
+    }
+
+    /**
+     * @param bytes The array to read.
+     */
+    public ByteReader(final byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @param bytes The array to read.
+     * @param offset The index of the first byte to read.
+     * @param length The number of the readable bytes.
+     */
+    public ByteReader(final byte[] bytes, final int offset, final int length) {
+        reset(bytes, offset, length);
+    }
+
+    /**
+     * Reads the bytes between the position and the limit of the buffer.
+     * @param buffer The buffer to read. Its position is not changed by the reader.
+     */
+    public ByteReader(final ByteBuffer buffer) {
+        reset(buffer);
+    }
+
+    /**
+     * Starts to read an other part of an array with the same reader.
+     * @param bytes The array to read.
+     * @param offset The index of the first byte to read.
+     * @param length The number of the readable bytes.
+     * @return This reader.
+     */
+    public ByteReader reset(final byte[] bytes, final int offset, final int length) {
+        if (offset < 0 || length < 0 || offset > bytes.length - length) {
+            throw new IndexOutOfBoundsException("Offset: " + offset + ", Length: " + length + ", Size: " + bytes.length);
+        }
+        this.bytes = bytes;
+        this.buffer = null;
+        this.position = offset;
+        this.limit = offset + length;
+        this.base = 0;
+        return this;
+    }
+
+    /**
+     * Starts to read the bytes between the position and the limit of an other buffer with the same reader.
+     * Heap buffers are read through their backing array.
+     * @param buffer The buffer to read. Its position is not changed by the reader.
+     * @return This reader.
+     */
+    public ByteReader reset(final ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            reset(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            this.base = buffer.arrayOffset();
+            return this;
+        }
+        this.bytes = null;
+        this.buffer = buffer;
+        this.position = buffer.position();
+        this.limit = buffer.limit();
+        this.base = 0;
+        return this;
+    }
+
+    /**
+     * @return The index of the next byte to read in the array, or in the buffer if a {@link ByteBuffer} is read.
+     */
+    public int position() {
+        return position - base;
+    }
+
+    /**
+     * @return The number of the bytes which are not read yet.
+     */
+    public int remaining() {
+        return limit - position;
+    }
+
+    /**
+     * @return <tt>true</tt> if there is at least one byte which is not read yet.
+     */
+    public boolean hasRemaining() {
+        return position < limit;
+    }
+
+    /**
+     * @return The next int.
+     * @throws ConverterException If there are not enough bytes.
+     */
+    public int readInt() throws ConverterException {
+        final int offset = advance(Converters.INT_LENGTH);
+        return bytes != null ? Converters.toInt(bytes, offset) : Converters.toInt(buffer, offset);
+    }
+
+    /**
+     * @return The next long.
+     * @throws ConverterException If there are not enough bytes.
+     */
+    public long readLong() throws ConverterException {
+        final int offset = advance(Converters.LONG_LENGTH);
+        return bytes != null ? Converters.toLong(bytes, offset) : Converters.toLong(buffer, offset);
+    }
+
+    /**
+     * @return The next float.
+     * @throws ConverterException If there are not enough bytes.
+     */
+    public float readFloat() throws ConverterException {
+        final int offset = advance(Converters.INT_LENGTH);
+        return bytes != null ? Converters.toFloat(bytes, offset) : Converters.toFloat(buffer, offset);
+    }
+
+    /**
+     * @return The next double.
+     * @throws ConverterException If there are not enough bytes.
+     */
+    public double readDouble() throws ConverterException {
+        final int offset = advance(Converters.LONG_LENGTH);
+        return bytes != null ? Converters.toDouble(bytes, offset) : Converters.toDouble(buffer, offset);
+    }
+
+    /**
+     * @param length The number of bytes to read.
+     * @return The position before the step.
+     * @throws ConverterException If there are not enough bytes.
+     */
+    private int advance(final int length) throws ConverterException {
+        if (limit - position < length) {
+            throw new ConverterException("Not enough bytes: " + (limit - position) + ", expected: " + length);
+        }
+        final int offset = position;
+        position += length;
+        return offset;
+    }
+
+}
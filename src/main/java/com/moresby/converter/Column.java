@@ -0,0 +1,92 @@
+/*
+ * Moresby Coffee Bean
+ *
+ * Copyright (c) 2012, Barnabas Sudy (barnabas.sudy@gmail.com)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those
+ * of the authors and should not be interpreted as representing official policies,
+ * either expressed or implied, of the FreeBSD Project.
+ */
+package com.moresby.converter;
+
+import java.util.BitSet;
+
+/**
+ * Base class of the primitive columns produced by the columnar converters of {@link Converters}.
+ * The <tt>null</tt> values are tracked in a {@link BitSet} instead of boxed elements.
+ *
+ * @author Barnabas Sudy (barnabas.sudy@gmail.com)
+ * @since 2012
+ */
+public abstract class Column {
+
+    /** The number of the elements in the column. */
+    private final int size;
+
+    /** The indexes of the <tt>null</tt> elements. */
+    private final BitSet nulls;
+
+    /**
+     * @param size The number of the elements in the column.
+     * @param nulls The indexes of the <tt>null</tt> elements.
+     */
+    Column(final int size, final BitSet nulls) {
+        this.size = size;
+        this.nulls = nulls;
+    }
+
+    /**
+     * @return The number of the elements in the column.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index The index of the element.
+     * @return <tt>true</tt> if the element was <tt>null</tt> in the source.
+     */
+    public boolean isNull(final int index) {
+        checkIndex(index);
+        return nulls.get(index);
+    }
+
+    /**
+     * @return The number of the <tt>null</tt> elements in the column.
+     */
+    public int nullCount() {
+        return nulls.cardinality();
+    }
+
+    /**
+     * @param index The index to check.
+     * @throws IndexOutOfBoundsException If the index is not in the column.
+     */
+    void checkIndex(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+}
@@ -30,14 +30,52 @@
  */
 package com.moresby.converter;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
- * TODO javadoc.
+ * <p>Registry of {@link Converter}s which is able to find a converter (or a chain of converters)
+ * between two types.</p>
+ *
+ * <p>The converters are registered by their source and target types. If there is no direct converter
+ * between two types the context looks for a route through other types according to the {@link Routing}.
+ * The found routes are cached per (source, target) pair until the next registration.</p>
+ *
+ * <p>After all the converters are registered the context can be {@link #freeze() frozen}: the routes
+ * between all the registered types are computed at once and the context cannot be modified any more.
+ * The computed routes can be saved by {@link #writeRoutePlan(File)} and loaded by {@link #loadRoutePlan(File)}
+ * at the next startup to avoid the route search.</p>
+ *
+ * <p>A context can be created as the child of an other one (see {@link #createChild()}). The child contains only
+ * its own converters which override the converters of the parent between the same types. Creating a child does
+ * not copy the parent: a child without own converters uses the routes of the parent directly, and a child which
+ * only overrides existing converters reuses the routes of the parent with its own converters substituted.
+ * The cached routes of a child are dropped when the version stamp of the child or of any of its ancestors changes.</p>
  *
  * @author Barnabas Sudy (barnabas.sudy@gmail.com)
  * @since 2012
@@ -47,35 +85,834 @@ public class ConverterContext {
     /** The default priority of the converters. */
     private static final int DEFAULT_PRIORITY = 0;
 
+    /**
+     * The way of finding a route if there is no direct converter between two types.
+     */
     public enum Routing {
+        /** Takes the first route found by the configured {@link Search}. */
         AUTO,
+        /** Examines all the routes and takes the shortest one. */
         BRUTE_FORCE,
+        /** Only the direct converters are used. */
         NONE
     }
 
+    /**
+     * The order of the search used by {@link Routing#AUTO}.
+     */
     public enum Search {
         DEPTH_FIRST,
         BREADTH_FIRST
     }
 
-    private final Map<Class<?>, Map<Class<?>, List<Converter<?, ?>>>> converters = new HashMap<Class<?>, Map<Class<?>, List<Converter<?, ?>>>>();
+    /** The first int of the route plan files. */
+    private static final int PLAN_MAGIC = 0x4d435250;
+
+    /** The version of the route plan format. */
+    private static final int PLAN_VERSION = 2;
+
+    /** The cached value of the pairs between which there is no route. */
+    private static final Route NO_ROUTE = new Route(new Class<?>[0], new Registration[0]);
+
+    /** The parent context or <tt>null</tt>. */
+    private final ConverterContext parent;
+
+    /** The registered converters by source and target type. The lists are ordered by priority. */
+    private final Map<Class<?>, Map<Class<?>, List<Registration>>> converters = new LinkedHashMap<Class<?>, Map<Class<?>, List<Registration>>>();
+
+    /** The registered converters in the order of their registration. */
+    private final List<Registration> registered = new ArrayList<Registration>();
+
+    /** The routes between all the registered types if the context is frozen, <tt>null</tt> otherwise. */
+    private volatile RouteTable table;
+
+    /** The cache of the found routes by source and target type. */
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Class<?>, Route>> routes = new ConcurrentHashMap<Class<?>, ConcurrentMap<Class<?>, Route>>();
+
+    /** The stamp of the context chain the cached routes belong to. */
+    private volatile long routesStamp;
+
+    /** The number of the modifications of this context. */
+    private volatile int version;
+
+    /**
+     * <tt>true</tt> if all the converters of this context override converters of the parent between the same types
+     * with the same priority, so the routes of the parent are valid with the converters substituted.
+     */
+    private volatile boolean overridesOnly = true;
+
+    /** The routing of this context or <tt>null</tt> if the routing of the parent is used. */
+    private volatile Routing routing;
+
+    /** The search of this context or <tt>null</tt> if the search of the parent is used. */
+    private volatile Search search;
+
+    /** Creates an empty context. */
+    public ConverterContext() {
+        this(null);
+    }
+
+    /**
+     * Creates a child context. The child inherits the converters, the routing and the search of the parent,
+     * and follows their later changes as long as it does not set its own.
+     *
+     * @param parent The parent context or <tt>null</tt>.
+     */
+    public ConverterContext(final ConverterContext parent) {
+        this.parent = parent;
+        this.routing = parent == null ? Routing.AUTO : null;
+        this.search = parent == null ? Search.BREADTH_FIRST : null;
+    }
+
+    /**
+     * @return A new child context of this context.
+     * @see #ConverterContext(ConverterContext)
+     */
+    public ConverterContext createChild() {
+        return new ConverterContext(this);
+    }
 
+    /**
+     * @return The parent context or <tt>null</tt>.
+     */
+    public ConverterContext getParent() {
+        return parent;
+    }
+
+    /**
+     * @return The way of finding a route. The default is {@link Routing#AUTO}, or the routing of the parent for a child.
+     */
+    public Routing getRouting() {
+        final Routing own = routing;
+        return own != null ? own : parent.getRouting();
+    }
+
+    /**
+     * @param routing The way of finding a route.
+     */
+    public synchronized void setRouting(final Routing routing) {
+        checkNotFrozen();
+        this.routing = routing;
+        version++;
+    }
+
+    /**
+     * @return The order of the search. The default is {@link Search#BREADTH_FIRST}, or the search of the parent for a child.
+     */
+    public Search getSearch() {
+        final Search own = search;
+        return own != null ? own : parent.getSearch();
+    }
+
+    /**
+     * @param search The order of the search.
+     */
+    public synchronized void setSearch(final Search search) {
+        checkNotFrozen();
+        this.search = search;
+        version++;
+    }
+
+    /**
+     * Registers a converter with the default priority. The source and target types are determined
+     * from the type arguments of the {@link Converter} interface.
+     *
+     * @param converter The converter.
+     * @throws ConverterException If the types of the converter cannot be determined.
+     * @throws IllegalStateException If the context is frozen.
+     */
     public <F, T> void registerConverter(final Converter<F, T> converter) {
         registerConverter(converter, DEFAULT_PRIORITY);
     }
 
+    /**
+     * Registers a converter. The source and target types are determined from the type arguments
+     * of the {@link Converter} interface.
+     *
+     * @param converter The converter.
+     * @param prirority The priority of the converter. If there are more converters between the same
+     *                  types the one with the highest priority is used.
+     * @throws ConverterException If the types of the converter cannot be determined.
+     * @throws IllegalStateException If the context is frozen.
+     */
     public <F, T> void registerConverter(final Converter<F, T> converter, final int prirority) {
-        final Type[] genericInterfaces = converter.getClass().getGenericInterfaces();
-        for (final Type genericInterface : genericInterfaces) {
-            System.out.println("GenericInterface: " + genericInterface);
+        for (Class<?> clazz = converter.getClass(); clazz != null; clazz = clazz.getSuperclass()) {
+            for (final Type genericInterface : clazz.getGenericInterfaces()) {
+                if (genericInterface instanceof ParameterizedType
+                        && ((ParameterizedType) genericInterface).getRawType() == Converter.class) {
+                    final Type[] arguments = ((ParameterizedType) genericInterface).getActualTypeArguments();
+                    register(converter, rawType(arguments[0]), rawType(arguments[1]), prirority);
+                    return;
+                }
+            }
+        }
+        throw new ConverterException("Cannot determine the types of " + converter.getClass().getName());
+    }
+
+    /**
+     * Registers a converter the types of which cannot be determined from its class (e.g. {@link Converters.Chain}).
+     *
+     * @param converter The converter.
+     * @param from The source type.
+     * @param to The target type.
+     * @param prirority The priority of the converter.
+     * @throws IllegalStateException If the context is frozen.
+     */
+    public <F, T> void registerConverter(final Converter<F, T> converter, final Class<F> from, final Class<T> to, final int prirority) {
+        register(converter, from, to, prirority);
+    }
 
-            for (final Type argument : ((ParameterizedType)genericInterface).getActualTypeArguments()) {
-                System.out.println("argument: " + argument);
+    /**
+     * Converts an object to the given type.
+     *
+     * @param from The object to convert.
+     * @param to The target type.
+     * @return The converted object or <tt>null</tt> if the input value is <tt>null</tt>.
+     * @throws ConverterException If there is no route to the target type or the conversion fails.
+     */
+    public <T> T convert(final Object from, final Class<T> to) throws ConverterException {
+        if (from == null) {
+            return null;
+        }
+        final Route route = findRoute(from.getClass(), to);
+        if (route == NO_ROUTE) {
+            throw new ConverterException("No route from " + from.getClass().getName() + " to " + to.getName());
+        }
+        return to.cast(route.convert(from));
+    }
+
+    /**
+     * @param from The source type.
+     * @param to The target type.
+     * @return The converter (possibly a chain of converters) between the types or <tt>null</tt> if there is no route.
+     */
+    @SuppressWarnings("unchecked")
+    public <F, T> Converter<F, T> getConverter(final Class<F> from, final Class<T> to) {
+        final Route route = findRoute(from, to);
+        return route == NO_ROUTE ? null : (Converter<F, T>) route;
+    }
+
+    /**
+     * Adds a converter to the registry and drops the cached routes.
+     */
+    @SuppressWarnings("unchecked")
+    private synchronized void register(final Converter<?, ?> converter, final Class<?> from, final Class<?> to, final int priority) {
+        checkNotFrozen();
+        Map<Class<?>, List<Registration>> targets = converters.get(from);
+        if (targets == null) {
+            targets = new LinkedHashMap<Class<?>, List<Registration>>();
+            converters.put(from, targets);
+        }
+        List<Registration> list = targets.get(to);
+        if (list == null) {
+            list = new ArrayList<Registration>(1);
+            targets.put(to, list);
+        }
+        int index = 0;
+        while (index < list.size() && list.get(index).priority >= priority) {
+            index++;
+        }
+        final Registration registration = new Registration((Converter<Object, Object>) converter, from, to, priority, registered.size());
+        list.add(index, registration);
+        registered.add(registration);
+        if (parent != null) {
+            final Registration replaced = parent.findRegistration(from, to);
+            if (replaced == null || replaced.priority != priority) {
+                overridesOnly = false;
             }
         }
+        version++;
     }
 
-    public <F, T> T convert(final F from) {
+    /**
+     * @return The best converter registered between exactly these types in the nearest of the context and its ancestors
+     *         or <tt>null</tt>.
+     */
+    private Registration findRegistration(final Class<?> from, final Class<?> to) {
+        synchronized (this) {
+            final Map<Class<?>, List<Registration>> targets = converters.get(from);
+            if (targets != null && targets.containsKey(to)) {
+                return targets.get(to).get(0);
+            }
+        }
+        return parent == null ? null : parent.findRegistration(from, to);
+    }
+
+    /**
+     * @return The sum of the versions of the context and its ancestors. It changes if any of them is modified.
+     */
+    private long stamp() {
+        long stamp = 0;
+        for (ConverterContext context = this; context != null; context = context.parent) {
+            stamp += context.version;
+        }
+        return stamp;
+    }
+
+    /**
+     * Computes the routes between all the registered types and makes the context immutable.
+     * The frozen routes are looked up by dense type ids, without search and without locking.
+     * Calling the method on a frozen context has no effect.
+     *
+     * @throws IllegalStateException If the context has a parent which is not frozen.
+     */
+    public synchronized void freeze() {
+        if (table != null) {
+            return;
+        }
+        if (parent != null && !parent.isFrozen()) {
+            throw new IllegalStateException("The parent context is not frozen");
+        }
+        final Class<?>[] types = registeredTypes();
+        final Route[][] frozenRoutes = new Route[types.length][types.length];
+        for (int i = 0; i < types.length; i++) {
+            for (int j = 0; j < types.length; j++) {
+                frozenRoutes[i][j] = searchRoute(types[i], types[j]);
+            }
+        }
+        table = new RouteTable(types, frozenRoutes);
+    }
+
+    /**
+     * @return <tt>true</tt> if the context is frozen.
+     */
+    public boolean isFrozen() {
+        return table != null;
+    }
+
+    /**
+     * Saves the routes of a frozen context.
+     *
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     * @throws IllegalStateException If the context is not frozen or it has a parent.
+     */
+    public synchronized void writeRoutePlan(final File file) throws IOException {
+        if (table == null) {
+            throw new IllegalStateException("The context is not frozen");
+        }
+        checkRoot();
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        try {
+            out.writeInt(PLAN_MAGIC);
+            out.writeInt(PLAN_VERSION);
+            writeSignature(out);
+            for (final Route[] row : table.routes) {
+                for (final Route route : row) {
+                    if (route == NO_ROUTE) {
+                        out.writeInt(-1);
+                    } else {
+                        out.writeInt(route.steps.length);
+                        for (final Registration step : route.steps) {
+                            out.writeInt(step.index);
+                        }
+                    }
+                }
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Loads the routes saved by {@link #writeRoutePlan(File)} and freezes the context. The plan is used only if it
+     * was written by a context with converters between the same types registered in the same order, with the same
+     * priorities and with the same {@link Routing} and {@link Search}. The classes of the converters are not part of
+     * the check, as the routes do not depend on them and the names of lambdas and anonymous classes are not stable
+     * between runs; a converter can be replaced by an other one between the same types without invalidating the plan.
+     *
+     * @param file The file to read.
+     * @return <tt>true</tt> if the plan was valid and the context is frozen,
+     *         <tt>false</tt> if the plan does not belong to this context (the context is not changed).
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalStateException If the context is already frozen or it has a parent.
+     */
+    public synchronized boolean loadRoutePlan(final File file) throws IOException {
+        checkNotFrozen();
+        checkRoot();
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != PLAN_MAGIC || in.readInt() != PLAN_VERSION) {
+                return false;
+            }
+            final Class<?>[] types = registeredTypes();
+            if (in.readUTF().equals(getRouting().name()) && in.readUTF().equals(getSearch().name())
+                    && in.readInt() == registered.size() && readRegistrations(in) && in.readInt() == types.length) {
+                for (final Class<?> type : types) {
+                    if (!in.readUTF().equals(type.getName())) {
+                        return false;
+                    }
+                }
+                final Route[][] loadedRoutes = new Route[types.length][types.length];
+                for (int i = 0; i < types.length; i++) {
+                    for (int j = 0; j < types.length; j++) {
+                        loadedRoutes[i][j] = readRoute(in, types[i], types[j]);
+                        if (loadedRoutes[i][j] == null) {
+                            return false;
+                        }
+                    }
+                }
+                table = new RouteTable(types, loadedRoutes);
+                return true;
+            }
+            return false;
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes the configuration which determines the routes: the routing, the registrations and the types.
+     */
+    private void writeSignature(final DataOutputStream out) throws IOException {
+        out.writeUTF(getRouting().name());
+        out.writeUTF(getSearch().name());
+        out.writeInt(registered.size());
+        for (final Registration registration : registered) {
+            out.writeUTF(registration.from.getName());
+            out.writeUTF(registration.to.getName());
+            out.writeInt(registration.priority);
+        }
+        out.writeInt(table.types.length);
+        for (final Class<?> type : table.types) {
+            out.writeUTF(type.getName());
+        }
+    }
+
+    /**
+     * @return <tt>true</tt> if the registrations in the stream match the registered converters.
+     */
+    private boolean readRegistrations(final DataInputStream in) throws IOException {
+        for (final Registration registration : registered) {
+            if (!in.readUTF().equals(registration.from.getName())
+                    || !in.readUTF().equals(registration.to.getName())
+                    || in.readInt() != registration.priority) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The route or <tt>null</tt> if the route refers an unknown registration or its steps do not
+     *         lead from the source to the target type.
+     */
+    private Route readRoute(final DataInputStream in, final Class<?> from, final Class<?> to) throws IOException {
+        final int length = in.readInt();
+        if (length < 0) {
+            return NO_ROUTE;
+        }
+        if (length > registered.size()) {
+            return null;
+        }
+        final Registration[] steps = new Registration[length];
+        Class<?> type = from;
+        for (int i = 0; i < length; i++) {
+            final int index = in.readInt();
+            if (index < 0 || index >= registered.size()) {
+                return null;
+            }
+            steps[i] = registered.get(index);
+            if (!steps[i].from.isAssignableFrom(type)) {
+                return null;
+            }
+            type = steps[i].to;
+        }
+        if (!to.isAssignableFrom(type)) {
+            return null;
+        }
+        return toRoute(from, Arrays.asList(steps));
+    }
+
+    /**
+     * @return The source and target types of the converters registered in the context and its ancestors.
+     *         The types of the ancestors come first, then the types in the order of their registration.
+     */
+    private Class<?>[] registeredTypes() {
+        final Set<Class<?>> types = new LinkedHashSet<Class<?>>();
+        if (parent != null) {
+            types.addAll(Arrays.asList(parent.registeredTypes()));
+        }
+        synchronized (this) {
+            for (final Registration registration : registered) {
+                types.add(registration.from);
+                types.add(registration.to);
+            }
+        }
+        return types.toArray(new Class<?>[types.size()]);
+    }
+
+    /**
+     * @throws IllegalStateException If the context has a parent.
+     */
+    private void checkRoot() {
+        if (parent != null) {
+            throw new IllegalStateException("Route plans are supported only for contexts without parent");
+        }
+    }
+
+    /**
+     * @throws IllegalStateException If the context is frozen.
+     */
+    private void checkNotFrozen() {
+        if (table != null) {
+            throw new IllegalStateException("The context is frozen");
+        }
+    }
+
+    /**
+     * @param from The source type.
+     * @param to The target type.
+     * @return The cached or the newly found route or {@link #NO_ROUTE}.
+     */
+    private Route findRoute(final Class<?> from, final Class<?> to) {
+        final RouteTable frozen = table;
+        if (frozen != null) {
+            final Route route = frozen.get(from, to);
+            if (route != null) {
+                return route;
+            }
+        }
+        if (parent != null && version == 0) {
+            return parent.findRoute(from, to);
+        }
+        final long stamp = stamp();
+        if (stamp == routesStamp) {
+            final ConcurrentMap<Class<?>, Route> cached = routes.get(from);
+            if (cached != null) {
+                final Route route = cached.get(to);
+                if (route != null) {
+                    return route;
+                }
+            }
+        }
+        synchronized (this) {
+            final long current = stamp();
+            if (current != routesStamp) {
+                routes.clear();
+                routesStamp = current;
+            }
+            ConcurrentMap<Class<?>, Route> targets = routes.get(from);
+            if (targets == null) {
+                targets = new ConcurrentHashMap<Class<?>, Route>();
+                routes.put(from, targets);
+            }
+            Route route = targets.get(to);
+            if (route == null) {
+                route = searchRoute(from, to);
+                targets.put(to, route);
+            }
+            return route;
+        }
+    }
+
+    /**
+     * Looks for a route. A direct converter to exactly the target type is preferred even to the identity
+     * (e.g. a String to String converter), but a value which is already an instance of the target type is
+     * not converted by a converter to a subtype of the target (e.g. an Integer to Object).
+     */
+    private Route searchRoute(final Class<?> from, final Class<?> to) {
+        final Routing routing = getRouting();
+        final Search search = getSearch();
+        if (parent != null && overridesOnly && routing == parent.getRouting() && search == parent.getSearch()) {
+            return overlay(parent.findRoute(from, to));
+        }
+        final boolean identity = to.isAssignableFrom(from);
+        for (final Registration edge : edges(from)) {
+            if (identity ? edge.to == to : to.isAssignableFrom(edge.to)) {
+                return new Route(new Class<?>[] {from, edge.to}, new Registration[] {edge});
+            }
+        }
+        if (identity) {
+            return new Route(new Class<?>[] {from}, new Registration[0]);
+        }
+        switch (routing) {
+        case NONE:
+            return NO_ROUTE;
+        case BRUTE_FORCE:
+            final List<Registration> best = new ArrayList<Registration>();
+            bruteForce(from, to, new ArrayList<Registration>(), new HashSet<Class<?>>(Collections.singleton(from)), best);
+            return best.isEmpty() ? NO_ROUTE : toRoute(from, best);
+        default:
+            if (search == Search.DEPTH_FIRST) {
+                final List<Registration> path = new ArrayList<Registration>();
+                return depthFirst(from, to, path, new HashSet<Class<?>>()) ? toRoute(from, path) : NO_ROUTE;
+            }
+            return breadthFirst(from, to);
+        }
+    }
+
+    private Route breadthFirst(final Class<?> from, final Class<?> to) {
+        final Map<Class<?>, Registration> via = new HashMap<Class<?>, Registration>();
+        final Map<Class<?>, Class<?>> previous = new HashMap<Class<?>, Class<?>>();
+        final Deque<Class<?>> queue = new ArrayDeque<Class<?>>();
+        previous.put(from, from);
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            final Class<?> node = queue.poll();
+            for (final Registration edge : edges(node)) {
+                if (previous.containsKey(edge.to)) {
+                    continue;
+                }
+                previous.put(edge.to, node);
+                via.put(edge.to, edge);
+                if (to.isAssignableFrom(edge.to)) {
+                    final List<Registration> path = new ArrayList<Registration>();
+                    for (Class<?> step = edge.to; step != from; step = previous.get(step)) {
+                        path.add(0, via.get(step));
+                    }
+                    return toRoute(from, path);
+                }
+                queue.add(edge.to);
+            }
+        }
+        return NO_ROUTE;
+    }
+
+    private boolean depthFirst(final Class<?> node, final Class<?> to, final List<Registration> path, final Set<Class<?>> visited) {
+        visited.add(node);
+        final List<Registration> edges = edges(node);
+        for (final Registration edge : edges) {
+            if (to.isAssignableFrom(edge.to)) {
+                path.add(edge);
+                return true;
+            }
+        }
+        for (final Registration edge : edges) {
+            if (!visited.contains(edge.to)) {
+                path.add(edge);
+                if (depthFirst(edge.to, to, path, visited)) {
+                    return true;
+                }
+                path.remove(path.size() - 1);
+            }
+        }
+        return false;
+    }
+
+    private void bruteForce(final Class<?> node, final Class<?> to, final List<Registration> path, final Set<Class<?>> onPath, final List<Registration> best) {
+        for (final Registration edge : edges(node)) {
+            if (onPath.contains(edge.to)) {
+                continue;
+            }
+            path.add(edge);
+            if (to.isAssignableFrom(edge.to)) {
+                if (best.isEmpty() || path.size() < best.size()) {
+                    best.clear();
+                    best.addAll(path);
+                }
+            } else {
+                onPath.add(edge.to);
+                bruteForce(edge.to, to, path, onPath, best);
+                onPath.remove(edge.to);
+            }
+            path.remove(path.size() - 1);
+        }
+    }
+
+    /**
+     * @param node The actual type.
+     * @return The best converter from the type to each reachable type ordered by priority.
+     *         The converters of a child replace the converters of its parent to the same type, and the converters of
+     *         the exact type precede the converters of its supertypes. Converters of the same priority keep the order
+     *         of the registration, ancestors first, as if all of them were registered in one context.
+     */
+    private List<Registration> edges(final Class<?> node) {
+        final List<ConverterContext> layers = new ArrayList<ConverterContext>();
+        for (ConverterContext context = this; context != null; context = context.parent) {
+            layers.add(0, context);
+        }
+        final Map<Class<?>, Registration> best = new LinkedHashMap<Class<?>, Registration>();
+        for (final ConverterContext context : layers) {
+            final Map<Class<?>, Registration> layer = new LinkedHashMap<Class<?>, Registration>();
+            if (context.table != null) {
+                // A frozen context cannot change any more, the volatile read of the table publishes its converters.
+                context.collect(node, layer);
+            } else {
+                synchronized (context) {
+                    context.collect(node, layer);
+                }
+            }
+            best.putAll(layer);
+        }
+        final List<Registration> edges = new ArrayList<Registration>(best.values());
+        Collections.sort(edges, Registration.BY_PRIORITY);
+        return edges;
+    }
+
+    /**
+     * Collects the best converters of this context (without the ancestors) from the type and its supertypes.
+     */
+    private void collect(final Class<?> node, final Map<Class<?>, Registration> best) {
+        collect(converters.get(node), best);
+        for (final Map.Entry<Class<?>, Map<Class<?>, List<Registration>>> entry : converters.entrySet()) {
+            if (entry.getKey() != node && entry.getKey().isAssignableFrom(node)) {
+                collect(entry.getValue(), best);
+            }
+        }
+    }
+
+    private static void collect(final Map<Class<?>, List<Registration>> targets, final Map<Class<?>, Registration> best) {
+        if (targets == null) {
+            return;
+        }
+        for (final Map.Entry<Class<?>, List<Registration>> entry : targets.entrySet()) {
+            if (!best.containsKey(entry.getKey())) {
+                best.put(entry.getKey(), entry.getValue().get(0));
+            }
+        }
+    }
+
+    private static Route toRoute(final Class<?> from, final List<Registration> steps) {
+        final Class<?>[] path = new Class<?>[steps.size() + 1];
+        path[0] = from;
+        for (int i = 0; i < steps.size(); i++) {
+            path[i + 1] = steps.get(i).to;
+        }
+        return new Route(path, steps.toArray(new Registration[steps.size()]));
+    }
+
+    /**
+     * Substitutes the converters of this context into a route of the parent. The parent's route is returned
+     * as it is if this context does not override any of its steps.
+     */
+    private Route overlay(final Route route) {
+        Registration[] steps = route.steps;
+        for (int i = 0; i < steps.length; i++) {
+            final Registration override = ownEdge(route.path[i], route.path[i + 1]);
+            if (override != null) {
+                if (steps == route.steps) {
+                    steps = steps.clone();
+                }
+                steps[i] = override;
+            }
+        }
+        return steps == route.steps ? route : new Route(route.path, steps);
+    }
+
+    /**
+     * @return The converter of this context (without the ancestors) from the type to exactly the target type or <tt>null</tt>.
+     */
+    private Registration ownEdge(final Class<?> node, final Class<?> to) {
+        final Map<Class<?>, List<Registration>> exact = converters.get(node);
+        if (exact != null && exact.containsKey(to)) {
+            return exact.get(to).get(0);
+        }
+        for (final Map.Entry<Class<?>, Map<Class<?>, List<Registration>>> entry : converters.entrySet()) {
+            if (entry.getKey().isAssignableFrom(node) && entry.getValue().containsKey(to)) {
+                return entry.getValue().get(to).get(0);
+            }
+        }
         return null;
     }
+
+    private static Class<?> rawType(final Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return rawType(((ParameterizedType) type).getRawType());
+        }
+        if (type instanceof GenericArrayType) {
+            return Array.newInstance(rawType(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+        throw new ConverterException("Cannot determine the raw type of " + type);
+    }
+
+    /**
+     * A registered converter.
+     */
+    private static final class Registration {
+
+        /** Orders the registrations by descending priority. */
+        static final Comparator<Registration> BY_PRIORITY = new Comparator<Registration>() {
+            @Override
+            public int compare(final Registration r1, final Registration r2) {
+                return r1.priority < r2.priority ? 1 : (r1.priority == r2.priority ? 0 : -1);
+            }
+        };
+
+        final Converter<Object, Object> converter;
+        final Class<?> from;
+        final Class<?> to;
+        final int priority;
+        /** The sequence number of the registration. */
+        final int index;
+
+        Registration(final Converter<Object, Object> converter, final Class<?> from, final Class<?> to, final int priority, final int index) {
+            this.converter = converter;
+            this.from = from;
+            this.to = to;
+            this.priority = priority;
+            this.index = index;
+        }
+    }
+
+    /**
+     * A chain of converters between two types.
+     */
+    private static final class Route implements Converter<Object, Object> {
+
+        /** The types along the route. The first one is the source type. */
+        final Class<?>[] path;
+        final Registration[] steps;
+
+        Route(final Class<?>[] path, final Registration[] steps) {
+            this.path = path;
+            this.steps = steps;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public Object convert(final Object from) throws ConverterException {
+            Object result = from;
+            for (final Registration step : steps) {
+                result = step.converter.convert(result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * The routes between all the registered types of a frozen context. The types are mapped to dense ids
+     * which index the route array.
+     */
+    private static final class RouteTable {
+
+        /** The id of types which are not in the table. */
+        private static final Integer UNKNOWN = Integer.valueOf(-1);
+
+        final Class<?>[] types;
+        /** The routes by source and target id. */
+        final Route[][] routes;
+        /** The id of the types cached on the classes themselves, computed once per class and table. */
+        private final ClassValue<Integer> ids = new ClassValue<Integer>() {
+            @Override
+            protected Integer computeValue(final Class<?> type) {
+                for (int i = 0; i < types.length; i++) {
+                    if (types[i] == type) {
+                        return Integer.valueOf(i);
+                    }
+                }
+                return UNKNOWN;
+            }
+        };
+
+        RouteTable(final Class<?>[] types, final Route[][] routes) {
+            this.types = types;
+            this.routes = routes;
+        }
+
+        /**
+         * @return The route or <tt>null</tt> if any of the types is not registered.
+         */
+        Route get(final Class<?> from, final Class<?> to) {
+            final int fromId = ids.get(from).intValue();
+            final int toId = ids.get(to).intValue();
+            if (fromId < 0 || toId < 0) {
+                return null;
+            }
+            return routes[fromId][toId];
+        }
+    }
 }
@@ -32,10 +32,16 @@ package com.moresby.converter;
 
 import java.io.UnsupportedEncodingException;
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This utility class contains a couple of predefined {@link Converter}s and
@@ -149,6 +155,178 @@ public final class Converters {
 
     };
 
+    /**
+     * <p>Implementation of {@link Converter} which is able to convert a byte[] produced by {@link #INT_TO_BYTE} back to an integer.</p>
+     * <p>If the input value is <tt>null</tt> than the converter returns a <tt>null</tt>
+     */
+    public static final Converter<byte[], Integer> BYTE_TO_INT = new Converter<byte[], Integer>() {
+
+        @Override
+        public Integer convert(final byte[] from) throws ConverterException {
+            if (from == null) {
+                return null;
+            }
+            checkLength(from, INT_LENGTH);
+            return Integer.valueOf(toInt(from, 0));
+        }
+
+    };
+
+    /**
+     * <p>Implementation of {@link Converter} which is able to convert a byte[] produced by {@link #LONG_TO_BYTE} back to a long.</p>
+     * <p>If the input value is <tt>null</tt> than the converter returns a <tt>null</tt>
+     */
+    public static final Converter<byte[], Long> BYTE_TO_LONG = new Converter<byte[], Long>() {
+
+        @Override
+        public Long convert(final byte[] from) throws ConverterException {
+            if (from == null) {
+                return null;
+            }
+            checkLength(from, LONG_LENGTH);
+            return Long.valueOf(toLong(from, 0));
+        }
+
+    };
+
+    /**
+     * <p>Implementation of {@link Converter} which is able to convert a byte[] produced by {@link #FLOAT_TO_BYTE} back to a float.</p>
+     * <p>If the input value is <tt>null</tt> than the converter returns a <tt>null</tt>
+     */
+    public static final Converter<byte[], Float> BYTE_TO_FLOAT = new Converter<byte[], Float>() {
+
+        @Override
+        public Float convert(final byte[] from) throws ConverterException {
+            if (from == null) {
+                return null;
+            }
+            checkLength(from, INT_LENGTH);
+            return Float.valueOf(toFloat(from, 0));
+        }
+
+    };
+
+    /**
+     * <p>Implementation of {@link Converter} which is able to convert a byte[] produced by {@link #DOUBLE_TO_BYTE} back to a double.</p>
+     * <p>If the input value is <tt>null</tt> than the converter returns a <tt>null</tt>
+     */
+    public static final Converter<byte[], Double> BYTE_TO_DOUBLE = new Converter<byte[], Double>() {
+
+        @Override
+        public Double convert(final byte[] from) throws ConverterException {
+            if (from == null) {
+                return null;
+            }
+            checkLength(from, LONG_LENGTH);
+            return Double.valueOf(toDouble(from, 0));
+        }
+
+    };
+
+    /** The number of bytes of an int or a float. */
+    static final int INT_LENGTH = 4;
+
+    /** The number of bytes of a long or a double. */
+    static final int LONG_LENGTH = 8;
+
+    /**
+     * @param from The byte array.
+     * @param length The expected length.
+     * @throws ConverterException If the length of the array is not the expected one.
+     */
+    private static void checkLength(final byte[] from, final int length) throws ConverterException {
+        if (from.length != length) {
+            throw new ConverterException("Invalid length: " + from.length + ", expected: " + length);
+        }
+    }
+
+    /**
+     * Reads an int in the format of {@link #INT_TO_BYTE} without copying the array.
+     * @param bytes The byte array.
+     * @param offset The index of the first byte.
+     * @return The int value.
+     */
+    public static int toInt(final byte[] bytes, final int offset) {
+        return (bytes[offset] << 24)
+            | ((bytes[offset + 1] & 0xff) << 16)
+            | ((bytes[offset + 2] & 0xff) << 8)
+            | (bytes[offset + 3] & 0xff);
+    }
+
+    /**
+     * Reads a long in the format of {@link #LONG_TO_BYTE} without copying the array.
+     * @param bytes The byte array.
+     * @param offset The index of the first byte.
+     * @return The long value.
+     */
+    public static long toLong(final byte[] bytes, final int offset) {
+        return ((long) toInt(bytes, offset) << 32) | (toInt(bytes, offset + INT_LENGTH) & 0xffffffffL);
+    }
+
+    /**
+     * Reads a float in the format of {@link #FLOAT_TO_BYTE} without copying the array.
+     * @param bytes The byte array.
+     * @param offset The index of the first byte.
+     * @return The float value.
+     */
+    public static float toFloat(final byte[] bytes, final int offset) {
+        return Float.intBitsToFloat(toInt(bytes, offset));
+    }
+
+    /**
+     * Reads a double in the format of {@link #DOUBLE_TO_BYTE} without copying the array.
+     * @param bytes The byte array.
+     * @param offset The index of the first byte.
+     * @return The double value.
+     */
+    public static double toDouble(final byte[] bytes, final int offset) {
+        return Double.longBitsToDouble(toLong(bytes, offset));
+    }
+
+    /**
+     * Reads an int in the format of {@link #INT_TO_BYTE} without changing the position of the buffer.
+     * The result does not depend on the byte order of the buffer.
+     * @param buffer The buffer.
+     * @param index The index of the first byte.
+     * @return The int value.
+     */
+    public static int toInt(final ByteBuffer buffer, final int index) {
+        final int value = buffer.getInt(index);
+        return buffer.order() == ByteOrder.BIG_ENDIAN ? value : Integer.reverseBytes(value);
+    }
+
+    /**
+     * Reads a long in the format of {@link #LONG_TO_BYTE} without changing the position of the buffer.
+     * The result does not depend on the byte order of the buffer.
+     * @param buffer The buffer.
+     * @param index The index of the first byte.
+     * @return The long value.
+     */
+    public static long toLong(final ByteBuffer buffer, final int index) {
+        final long value = buffer.getLong(index);
+        return buffer.order() == ByteOrder.BIG_ENDIAN ? value : Long.reverseBytes(value);
+    }
+
+    /**
+     * Reads a float in the format of {@link #FLOAT_TO_BYTE} without changing the position of the buffer.
+     * @param buffer The buffer.
+     * @param index The index of the first byte.
+     * @return The float value.
+     */
+    public static float toFloat(final ByteBuffer buffer, final int index) {
+        return Float.intBitsToFloat(toInt(buffer, index));
+    }
+
+    /**
+     * Reads a double in the format of {@link #DOUBLE_TO_BYTE} without changing the position of the buffer.
+     * @param buffer The buffer.
+     * @param index The index of the first byte.
+     * @return The double value.
+     */
+    public static double toDouble(final ByteBuffer buffer, final int index) {
+        return Double.longBitsToDouble(toLong(buffer, index));
+    }
+
 
     /**
      * <p>Implementation of {@link Converter} which is able to convert a String to its byte[] representation in which the content is utf8 encoded.</p>
@@ -170,6 +348,26 @@ public final class Converters {
 
     };
 
+    /**
+     * <p>Implementation of {@link Converter} which is able to convert an utf8 encoded byte[] to a String. It is the inverse of {@link #STRING_TO_UTF8}.</p>
+     * <p>If the input value is <tt>null</tt> than the converter returns a <tt>null</tt>
+     */
+    public static final Converter<byte[], String> UTF8_TO_STRING = new Converter<byte[], String>() {
+
+        @Override
+        public String convert(final byte[] from) throws ConverterException {
+            if (from == null) {
+                return null;
+            }
+            try {
+                return new String(from, "UTF-8");
+            } catch (final UnsupportedEncodingException e) {
+                throw new ConverterException(e); //Should never happen.
+            }
+        }
+
+    };
+
     /**
      * <p>Implementation of {@link Converter} which is able to convert a String to Long using the {@link Long#valueOf(String)} method.</p>
      * <p>If the input value is <tt>null</tt> than the converter returns a <tt>null</tt>
@@ -243,7 +441,8 @@ public final class Converters {
     };
 
     /**
-     * <p>Implementation of {@link Converter} which is able to convert a String to Double using the {@link Double#valueOf(String)} method.</p>
+     * <p>Implementation of {@link Converter} which is able to convert a String to Double using the {@link FloatingPoint#parseDouble(CharSequence)} method.
+     * The result is the same as the result of {@link Double#valueOf(String)}.</p>
      * <p>If the input value is <tt>null</tt> than the converter returns a <tt>null</tt>
      */
     public static final Converter<String, Double> STRING_TO_DOUBLE = new Converter<String, Double>() {
@@ -254,7 +453,7 @@ public final class Converters {
                 return null;
             }
             try {
-                return Double.valueOf(from);
+                return Double.valueOf(FloatingPoint.parseDouble(from));
             } catch (final NumberFormatException e) {
                 throw new ConverterException(e);
             }
@@ -263,7 +462,8 @@ public final class Converters {
     };
 
     /**
-     * <p>Implementation of {@link Converter} which is able to convert a String to Float using the {@link Float#valueOf(String)} method.</p>
+     * <p>Implementation of {@link Converter} which is able to convert a String to Float using the {@link FloatingPoint#parseFloat(CharSequence)} method.
+     * The result is the same as the result of {@link Float#valueOf(String)}.</p>
      * <p>If the input value is <tt>null</tt> than the converter returns a <tt>null</tt>
      */
     public static final Converter<String, Float> STRING_TO_FLOAT = new Converter<String, Float>() {
@@ -274,7 +474,7 @@ public final class Converters {
                 return null;
             }
             try {
-                return Float.valueOf(from);
+                return Float.valueOf(FloatingPoint.parseFloat(from));
             } catch (final NumberFormatException e) {
                 throw new ConverterException(e);
             }
@@ -298,6 +498,40 @@ public final class Converters {
 
     };
 
+    /**
+     * <p>Implementation of {@link Converter} which is able to convert a Double to the shortest String which is parsed back to the same value
+     * using the {@link FloatingPoint#toString(double)} method.</p>
+     * <p>If the input value is <tt>null</tt> than the converter returns a <tt>null</tt>
+     */
+    public static final Converter<Double, String> DOUBLE_TO_STRING = new Converter<Double, String>() {
+
+        @Override
+        public String convert(final Double from) throws ConverterException {
+            if (from == null) {
+                return null;
+            }
+            return FloatingPoint.toString(from.doubleValue());
+        }
+
+    };
+
+    /**
+     * <p>Implementation of {@link Converter} which is able to convert a Float to the shortest String which is parsed back to the same value
+     * using the {@link FloatingPoint#toString(float)} method.</p>
+     * <p>If the input value is <tt>null</tt> than the converter returns a <tt>null</tt>
+     */
+    public static final Converter<Float, String> FLOAT_TO_STRING = new Converter<Float, String>() {
+
+        @Override
+        public String convert(final Float from) throws ConverterException {
+            if (from == null) {
+                return null;
+            }
+            return FloatingPoint.toString(from.floatValue());
+        }
+
+    };
+
 
     /**
      * Trims a string using {@link String#trim()} method.
@@ -448,6 +682,196 @@ public final class Converters {
 
     }
 
+    /**
+     * <p>Implementation of {@link Converter} which is able to convert a Collection of Strings to a {@link LongColumn}
+     * using the {@link Long#parseLong(String)} method.</p>
+     * <p>The <tt>null</tt> elements are tracked in the column. If the input value is <tt>null</tt> than the converter returns a <tt>null</tt>
+     */
+    public static final Converter<Collection<String>, LongColumn> STRINGS_TO_LONG_COLUMN = new Converter<Collection<String>, LongColumn>() {
+
+        @Override
+        public LongColumn convert(final Collection<String> from) throws ConverterException {
+            if (from == null) {
+                return null;
+            }
+            final long[] values = new long[from.size()];
+            final BitSet nulls = new BitSet();
+            int i = 0;
+            for (final String value : from) {
+                if (value == null) {
+                    nulls.set(i);
+                } else {
+                    try {
+                        values[i] = Long.parseLong(value);
+                    } catch (final NumberFormatException e) {
+                        throw new ConverterException("Invalid value at index " + i, e);
+                    }
+                }
+                i++;
+            }
+            return new LongColumn(values, nulls);
+        }
+
+    };
+
+    /**
+     * <p>Implementation of {@link Converter} which is able to convert a Collection of Strings to an {@link IntColumn}
+     * using the {@link Integer#parseInt(String)} method.</p>
+     * <p>The <tt>null</tt> elements are tracked in the column. If the input value is <tt>null</tt> than the converter returns a <tt>null</tt>
+     */
+    public static final Converter<Collection<String>, IntColumn> STRINGS_TO_INT_COLUMN = new Converter<Collection<String>, IntColumn>() {
+
+        @Override
+        public IntColumn convert(final Collection<String> from) throws ConverterException {
+            if (from == null) {
+                return null;
+            }
+            final int[] values = new int[from.size()];
+            final BitSet nulls = new BitSet();
+            int i = 0;
+            for (final String value : from) {
+                if (value == null) {
+                    nulls.set(i);
+                } else {
+                    try {
+                        values[i] = Integer.parseInt(value);
+                    } catch (final NumberFormatException e) {
+                        throw new ConverterException("Invalid value at index " + i, e);
+                    }
+                }
+                i++;
+            }
+            return new IntColumn(values, nulls);
+        }
+
+    };
+
+    /**
+     * <p>Implementation of {@link Converter} which is able to convert a Collection of Strings to a {@link DoubleColumn}
+     * using the {@link FloatingPoint#parseDouble(CharSequence)} method.</p>
+     * <p>The <tt>null</tt> elements are tracked in the column. If the input value is <tt>null</tt> than the converter returns a <tt>null</tt>
+     */
+    public static final Converter<Collection<String>, DoubleColumn> STRINGS_TO_DOUBLE_COLUMN = new Converter<Collection<String>, DoubleColumn>() {
+
+        @Override
+        public DoubleColumn convert(final Collection<String> from) throws ConverterException {
+            if (from == null) {
+                return null;
+            }
+            final double[] values = new double[from.size()];
+            final BitSet nulls = new BitSet();
+            int i = 0;
+            for (final String value : from) {
+                if (value == null) {
+                    nulls.set(i);
+                } else {
+                    try {
+                        values[i] = FloatingPoint.parseDouble(value);
+                    } catch (final NumberFormatException e) {
+                        throw new ConverterException("Invalid value at index " + i, e);
+                    }
+                }
+                i++;
+            }
+            return new DoubleColumn(values, nulls);
+        }
+
+    };
+
+    /**
+     * <p>One implementation of {@link Converter} interface which is able to convert a {@link Collection} of Strings
+     * to a {@link DictionaryColumn}.</p>
+     *
+     * <p>The implementation needs an other converter which normalizes the elements before they are put
+     * into the dictionary. If the normalizer returns <tt>null</tt> the element will be <tt>null</tt>.</p>
+     */
+    public static final class DictionaryColumnConverter implements Converter<Collection<String>, DictionaryColumn> {
+
+        private final Converter<String, String> normalizer;
+
+        /**
+         * @param normalizer The converter which normalizes the elements of the Collection.
+         */
+        public DictionaryColumnConverter(final Converter<String, String> normalizer) {
+            this.normalizer = normalizer;
+        }
+
+        /** {@inheritDoc} */
+        @Override
+        public DictionaryColumn convert(final Collection<String> from) throws ConverterException {
+            if (from == null) {
+                return null;
+            }
+            final int[] codes = new int[from.size()];
+            final BitSet nulls = new BitSet();
+            final Map<String, Integer> codesByValue = new HashMap<String, Integer>();
+            final List<String> dictionary = new ArrayList<String>();
+            int i = 0;
+            for (final String value : from) {
+                final String normalized = value == null ? null : normalizer.convert(value);
+                if (normalized == null) {
+                    nulls.set(i);
+                    codes[i] = DictionaryColumn.NULL_CODE;
+                } else {
+                    Integer code = codesByValue.get(normalized);
+                    if (code == null) {
+                        code = Integer.valueOf(dictionary.size());
+                        codesByValue.put(normalized, code);
+                        dictionary.add(normalized);
+                    }
+                    codes[i] = code.intValue();
+                }
+                i++;
+            }
+            return new DictionaryColumn(codes, dictionary.toArray(new String[dictionary.size()]), nulls);
+        }
+
+    }
+
+    /**
+     * Converter which converts a Collection of Strings to a {@link DictionaryColumn} normalizing the elements by {@link #TRIM}.
+     */
+    public static final Converter<Collection<String>, DictionaryColumn> STRINGS_TO_DICTIONARY_COLUMN = new DictionaryColumnConverter(TRIM);
+
+    /**
+     * Helper method which uses {@link #STRINGS_TO_LONG_COLUMN} to convert an array without copying it.
+     * @param from The array of Strings.
+     * @return The column or <tt>null</tt> if the array is <tt>null</tt>.
+     * @throws ConverterException If an element cannot be parsed.
+     */
+    public static LongColumn toLongColumn(final String[] from) throws ConverterException {
+        return from == null ? null : STRINGS_TO_LONG_COLUMN.convert(Arrays.asList(from));
+    }
+
+    /**
+     * Helper method which uses {@link #STRINGS_TO_INT_COLUMN} to convert an array without copying it.
+     * @param from The array of Strings.
+     * @return The column or <tt>null</tt> if the array is <tt>null</tt>.
+     * @throws ConverterException If an element cannot be parsed.
+     */
+    public static IntColumn toIntColumn(final String[] from) throws ConverterException {
+        return from == null ? null : STRINGS_TO_INT_COLUMN.convert(Arrays.asList(from));
+    }
+
+    /**
+     * Helper method which uses {@link #STRINGS_TO_DOUBLE_COLUMN} to convert an array without copying it.
+     * @param from The array of Strings.
+     * @return The column or <tt>null</tt> if the array is <tt>null</tt>.
+     * @throws ConverterException If an element cannot be parsed.
+     */
+    public static DoubleColumn toDoubleColumn(final String[] from) throws ConverterException {
+        return from == null ? null : STRINGS_TO_DOUBLE_COLUMN.convert(Arrays.asList(from));
+    }
+
+    /**
+     * Helper method which uses {@link #STRINGS_TO_DICTIONARY_COLUMN} to convert an array without copying it.
+     * @param from The array of Strings.
+     * @return The column or <tt>null</tt> if the array is <tt>null</tt>.
+     */
+    public static DictionaryColumn toDictionaryColumn(final String[] from) throws ConverterException {
+        return from == null ? null : STRINGS_TO_DICTIONARY_COLUMN.convert(Arrays.asList(from));
+    }
+
     public static class Chain<F, T1, T> implements Converter<F, T> {
 
         private final Converter<F, T1> c1;
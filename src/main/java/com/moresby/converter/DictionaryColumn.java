@@ -0,0 +1,99 @@
+/*
+ * Moresby Coffee Bean
+ *
+ * Copyright (c) 2012, Barnabas Sudy (barnabas.sudy@gmail.com)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those
+ * of the authors and should not be interpreted as representing official policies,
+ * either expressed or implied, of the FreeBSD Project.
+ */
+package com.moresby.converter;
+
+import java.util.BitSet;
+
+/**
+ * Dictionary encoded column of Strings. Every distinct value is stored once in the dictionary
+ * and the elements are stored as <tt>int</tt> codes pointing into the dictionary.
+ *
+ * @see Converters#STRINGS_TO_DICTIONARY_COLUMN
+ *
+ * @author Barnabas Sudy (barnabas.sudy@gmail.com)
+ * @since 2012
+ */
+public final class DictionaryColumn extends Column {
+
+    /** The code of the <tt>null</tt> elements. */
+    public static final int NULL_CODE = -1;
+
+    /** The codes of the elements. */
+    private final int[] codes;
+
+    /** The distinct values in the order of their first occurrence. */
+    private final String[] dictionary;
+
+    /**
+     * @param codes The codes of the elements.
+     * @param dictionary The distinct values.
+     * @param nulls The indexes of the <tt>null</tt> elements.
+     */
+    DictionaryColumn(final int[] codes, final String[] dictionary, final BitSet nulls) {
+        super(codes.length, nulls);
+        this.codes = codes;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * @param index The index of the element.
+     * @return The dictionary code of the element or {@link #NULL_CODE} if the element is <tt>null</tt>.
+     */
+    public int getCode(final int index) {
+        checkIndex(index);
+        return codes[index];
+    }
+
+    /**
+     * @param index The index of the element.
+     * @return The (normalized) value of the element or <tt>null</tt>.
+     */
+    public String getString(final int index) {
+        final int code = getCode(index);
+        return code == NULL_CODE ? null : dictionary[code];
+    }
+
+    /**
+     * @return The number of the distinct values.
+     */
+    public int dictionarySize() {
+        return dictionary.length;
+    }
+
+    /**
+     * @param code The dictionary code.
+     * @return The value belonging to the code.
+     */
+    public String getDictionaryValue(final int code) {
+        return dictionary[code];
+    }
+
+}
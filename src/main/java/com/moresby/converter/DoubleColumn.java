@@ -0,0 +1,66 @@
+/*
+ * Moresby Coffee Bean
+ *
+ * Copyright (c) 2012, Barnabas Sudy (barnabas.sudy@gmail.com)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those
+ * of the authors and should not be interpreted as representing official policies,
+ * either expressed or implied, of the FreeBSD Project.
+ */
+package com.moresby.converter;
+
+import java.util.BitSet;
+
+/**
+ * Column of primitive <tt>double</tt> values.
+ *
+ * @see Converters#STRINGS_TO_DOUBLE_COLUMN
+ *
+ * @author Barnabas Sudy (barnabas.sudy@gmail.com)
+ * @since 2012
+ */
+public final class DoubleColumn extends Column {
+
+    /** The values. The <tt>null</tt> elements are stored as <tt>0.0</tt>. */
+    private final double[] values;
+
+    /**
+     * @param values The values.
+     * @param nulls The indexes of the <tt>null</tt> elements.
+     */
+    DoubleColumn(final double[] values, final BitSet nulls) {
+        super(values.length, nulls);
+        this.values = values;
+    }
+
+    /**
+     * @param index The index of the element.
+     * @return The value of the element or <tt>0.0</tt> if the element is <tt>null</tt>.
+     */
+    public double getDouble(final int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+}
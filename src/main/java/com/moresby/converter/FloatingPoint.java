@@ -0,0 +1,795 @@
+/*
+ * Moresby Coffee Bean
+ *
+ * Copyright (c) 2012, Barnabas Sudy (barnabas.sudy@gmail.com)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those
+ * of the authors and should not be interpreted as representing official policies,
+ * either expressed or implied, of the FreeBSD Project.
+ */
+package com.moresby.converter;
+
+import java.math.BigInteger;
+
+/**
+ * <p>Utility class which converts floating point numbers to text and back without depending on the
+ * {@link Double#toString(double)} and {@link Double#parseDouble(String)} implementation of the JDK.</p>
+ *
+ * <p>The formatting produces the shortest decimal which rounds to the same value (Schubfach algorithm
+ * of Raffaello Giulietti) in the format of {@link Double#toString(double)}, written into a caller
+ * provided buffer. The parsing uses the Clinger and the Eisel-Lemire fast paths and falls back to
+ * {@link Double#parseDouble(String)} (or {@link Float#parseFloat(String)}) if the input is not a plain
+ * decimal number or the fast paths cannot decide the correctly rounded result. Consequently the parsing
+ * accepts exactly what the JDK methods accept and returns the same value.</p>
+ *
+ * @author Barnabas Sudy (barnabas.sudy@gmail.com)
+ * @since 2012
+ */
+public final class FloatingPoint {
+
+    /** The maximal number of characters written by {@link #toChars(double, char[], int)}. */
+    public static final int MAX_DOUBLE_LENGTH = 24;
+
+    /** The maximal number of characters written by {@link #toChars(float, char[], int)}. */
+    public static final int MAX_FLOAT_LENGTH = 15;
+
+    /** The smallest decimal exponent in the table of the powers of ten. */
+    private static final int MIN_EXP10 = -348;
+
+    /** The largest decimal exponent in the table of the powers of ten. */
+    private static final int MAX_EXP10 = 347;
+
+    /** The exponent from which the parsing is left to the JDK, as the digits may no longer decide the result alone. */
+    private static final int MAX_EXPONENT = 100000;
+
+    /** The high 64 bits of the 128 bit mantissas of the powers of ten (rounded down). */
+    private static final long[] POW10_HI = new long[MAX_EXP10 - MIN_EXP10 + 1];
+
+    /** The low 64 bits of the 128 bit mantissas of the powers of ten (rounded down). */
+    private static final long[] POW10_LO = new long[MAX_EXP10 - MIN_EXP10 + 1];
+
+    /** The powers of ten which are exactly representable as double. */
+    private static final double[] DOUBLE_POW10 = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+    };
+
+    /** The powers of ten which are exactly representable as float. */
+    private static final float[] FLOAT_POW10 = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f,
+    };
+
+    private static final long MASK_32 = (1L << 32) - 1;
+    private static final long MASK_63 = (1L << 63) - 1;
+
+    /** The number of the significand bits of double including the hidden bit. */
+    private static final int DOUBLE_P = 53;
+    /** The minimal binary exponent of double significands. */
+    private static final int DOUBLE_Q_MIN = -1074;
+    private static final long DOUBLE_C_MIN = 1L << (DOUBLE_P - 1);
+    private static final int DOUBLE_C_TINY = 3;
+
+    /** The number of the significand bits of float including the hidden bit. */
+    private static final int FLOAT_P = 24;
+    /** The minimal binary exponent of float significands. */
+    private static final int FLOAT_Q_MIN = -149;
+    private static final int FLOAT_C_MIN = 1 << (FLOAT_P - 1);
+    private static final int FLOAT_C_TINY = 8;
+
+    /** The buffer of the formatting into a {@link StringBuilder} or a {@link String}. */
+    private static final ThreadLocal<char[]> SCRATCH = new ThreadLocal<char[]>() {
+        @Override
+        protected char[] initialValue() {
+            return new char[MAX_DOUBLE_LENGTH];
+        }
+    };
+
+    static {
+        for (int e = MIN_EXP10; e <= MAX_EXP10; e++) {
+            BigInteger mantissa;
+            if (e >= 0) {
+                mantissa = BigInteger.TEN.pow(e);
+                final int shift = mantissa.bitLength() - 128;
+                mantissa = shift > 0 ? mantissa.shiftRight(shift) : mantissa.shiftLeft(-shift);
+            } else {
+                final BigInteger divisor = BigInteger.TEN.pow(-e);
+                mantissa = BigInteger.ONE.shiftLeft(divisor.bitLength() + 127).divide(divisor);
+            }
+            POW10_HI[e - MIN_EXP10] = mantissa.shiftRight(64).longValue();
+            POW10_LO[e - MIN_EXP10] = mantissa.longValue();
+        }
+    }
+
+    /**
+     * Writes the shortest decimal representation of a double in the format of {@link Double#toString(double)}.
+     *
+     * @param v The value.
+     * @param buf The buffer. At least {@link #MAX_DOUBLE_LENGTH} characters have to be available from the offset.
+     * @param off The index of the first character to write.
+     * @return The index after the last written character.
+     */
+    public static int toChars(final double v, final char[] buf, final int off) {
+        return write(v, buf, null, off);
+    }
+
+    /**
+     * Writes the shortest decimal representation of a double into the char or the byte array, whichever is not <tt>null</tt>.
+     */
+    private static int write(final double v, final char[] chars, final byte[] bytes, final int off) {
+        final long bits = Double.doubleToRawLongBits(v);
+        final long t = bits & (DOUBLE_C_MIN - 1);
+        final int bq = (int) (bits >>> (DOUBLE_P - 1)) & 0x7ff;
+        if (bq == 0x7ff) {
+            return put(t != 0 ? "NaN" : bits > 0 ? "Infinity" : "-Infinity", chars, bytes, off);
+        }
+        int pos = off;
+        if (bits < 0) {
+            pos = put('-', chars, bytes, pos);
+        }
+        if (bq != 0) {
+            final int mq = -DOUBLE_Q_MIN + 1 - bq;
+            final long c = DOUBLE_C_MIN | t;
+            if (0 < mq & mq < DOUBLE_P) {
+                final long f = c >> mq;
+                if (f << mq == c) {
+                    return layout(f, 0, chars, bytes, pos);
+                }
+            }
+            return toDecimal(-mq, c, 0, chars, bytes, pos);
+        }
+        if (t != 0) {
+            return t < DOUBLE_C_TINY ? toDecimal(DOUBLE_Q_MIN, 10 * t, -1, chars, bytes, pos) : toDecimal(DOUBLE_Q_MIN, t, 0, chars, bytes, pos);
+        }
+        return put("0.0", chars, bytes, pos);
+    }
+
+    /**
+     * Writes the shortest decimal representation of a float in the format of {@link Float#toString(float)}.
+     *
+     * @param v The value.
+     * @param buf The buffer. At least {@link #MAX_FLOAT_LENGTH} characters have to be available from the offset.
+     * @param off The index of the first character to write.
+     * @return The index after the last written character.
+     */
+    public static int toChars(final float v, final char[] buf, final int off) {
+        return write(v, buf, null, off);
+    }
+
+    /**
+     * Writes the shortest decimal representation of a float into the char or the byte array, whichever is not <tt>null</tt>.
+     */
+    private static int write(final float v, final char[] chars, final byte[] bytes, final int off) {
+        final int bits = Float.floatToRawIntBits(v);
+        final int t = bits & (FLOAT_C_MIN - 1);
+        final int bq = (bits >>> (FLOAT_P - 1)) & 0xff;
+        if (bq == 0xff) {
+            return put(t != 0 ? "NaN" : bits > 0 ? "Infinity" : "-Infinity", chars, bytes, off);
+        }
+        int pos = off;
+        if (bits < 0) {
+            pos = put('-', chars, bytes, pos);
+        }
+        if (bq != 0) {
+            final int mq = -FLOAT_Q_MIN + 1 - bq;
+            final int c = FLOAT_C_MIN | t;
+            if (0 < mq & mq < FLOAT_P) {
+                final int f = c >> mq;
+                if (f << mq == c) {
+                    return layout(f, 0, chars, bytes, pos);
+                }
+            }
+            return toDecimal(-mq, c, 0, chars, bytes, pos);
+        }
+        if (t != 0) {
+            return t < FLOAT_C_TINY ? toDecimal(FLOAT_Q_MIN, 10 * t, -1, chars, bytes, pos) : toDecimal(FLOAT_Q_MIN, t, 0, chars, bytes, pos);
+        }
+        return put("0.0", chars, bytes, pos);
+    }
+
+    /**
+     * Writes the shortest decimal representation of a double as ASCII bytes.
+     *
+     * @param v The value.
+     * @param buf The buffer. At least {@link #MAX_DOUBLE_LENGTH} bytes have to be available from the offset.
+     * @param off The index of the first byte to write.
+     * @return The index after the last written byte.
+     * @see #toChars(double, char[], int)
+     */
+    public static int toBytes(final double v, final byte[] buf, final int off) {
+        return write(v, null, buf, off);
+    }
+
+    /**
+     * Writes the shortest decimal representation of a float as ASCII bytes.
+     *
+     * @param v The value.
+     * @param buf The buffer. At least {@link #MAX_FLOAT_LENGTH} bytes have to be available from the offset.
+     * @param off The index of the first byte to write.
+     * @return The index after the last written byte.
+     * @see #toChars(float, char[], int)
+     */
+    public static int toBytes(final float v, final byte[] buf, final int off) {
+        return write(v, null, buf, off);
+    }
+
+    /**
+     * Appends the shortest decimal representation of a double.
+     *
+     * @param sb The builder.
+     * @param v The value.
+     * @return The builder.
+     * @see #toChars(double, char[], int)
+     */
+    public static StringBuilder append(final StringBuilder sb, final double v) {
+        final char[] chars = SCRATCH.get();
+        return sb.append(chars, 0, toChars(v, chars, 0));
+    }
+
+    /**
+     * Appends the shortest decimal representation of a float.
+     *
+     * @param sb The builder.
+     * @param v The value.
+     * @return The builder.
+     * @see #toChars(float, char[], int)
+     */
+    public static StringBuilder append(final StringBuilder sb, final float v) {
+        final char[] chars = SCRATCH.get();
+        return sb.append(chars, 0, toChars(v, chars, 0));
+    }
+
+    /**
+     * @param v The value.
+     * @return The shortest decimal representation of the double.
+     * @see #toChars(double, char[], int)
+     */
+    public static String toString(final double v) {
+        final char[] chars = SCRATCH.get();
+        return new String(chars, 0, toChars(v, chars, 0));
+    }
+
+    /**
+     * @param v The value.
+     * @return The shortest decimal representation of the float.
+     * @see #toChars(float, char[], int)
+     */
+    public static String toString(final float v) {
+        final char[] chars = SCRATCH.get();
+        return new String(chars, 0, toChars(v, chars, 0));
+    }
+
+    /**
+     * Parses a double. The result is the same as the result of {@link Double#parseDouble(String)}.
+     *
+     * @param s The text.
+     * @return The value.
+     * @throws NumberFormatException If the text is not a number.
+     */
+    public static double parseDouble(final CharSequence s) throws NumberFormatException {
+        return parse(s, null, 0, s.length(), false);
+    }
+
+    /**
+     * Parses a double from a part of a char array.
+     *
+     * @param chars The array.
+     * @param off The index of the first character.
+     * @param len The number of the characters.
+     * @return The value.
+     * @throws NumberFormatException If the text is not a number.
+     * @see #parseDouble(CharSequence)
+     */
+    public static double parseDouble(final char[] chars, final int off, final int len) throws NumberFormatException {
+        checkRange(chars, off, len);
+        return parse(null, chars, off, off + len, false);
+    }
+
+    /**
+     * Parses a float. The result is the same as the result of {@link Float#parseFloat(String)}.
+     *
+     * @param s The text.
+     * @return The value.
+     * @throws NumberFormatException If the text is not a number.
+     */
+    public static float parseFloat(final CharSequence s) throws NumberFormatException {
+        return (float) parse(s, null, 0, s.length(), true);
+    }
+
+    /**
+     * Parses a float from a part of a char array.
+     *
+     * @param chars The array.
+     * @param off The index of the first character.
+     * @param len The number of the characters.
+     * @return The value.
+     * @throws NumberFormatException If the text is not a number.
+     * @see #parseFloat(CharSequence)
+     */
+    public static float parseFloat(final char[] chars, final int off, final int len) throws NumberFormatException {
+        checkRange(chars, off, len);
+        return (float) parse(null, chars, off, off + len, true);
+    }
+
+    /**
+     * Parses a plain decimal number ([+-]digits[.digits][(e|E)[+-]digits]) with at most 19 significant digits
+     * by the fast paths. Everything else is parsed by the JDK.
+     *
+     * @param s The text or <tt>null</tt> if the text is in the char array.
+     * @param chars The char array if the text is not a {@link CharSequence}, <tt>null</tt> otherwise.
+     * @param single <tt>true</tt> if the result has to be rounded to float. The float is returned widened to double.
+     */
+    private static double parse(final CharSequence s, final char[] chars, final int start, final int end, final boolean single) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (charAt(s, chars, i) == '-' || charAt(s, chars, i) == '+')) {
+            negative = charAt(s, chars, i) == '-';
+            i++;
+        }
+        long man = 0; // unsigned, up to 19 digits
+        int digits = 0;
+        int exp10 = 0;
+        boolean any = false;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            final char ch = charAt(s, chars, i);
+            if (ch == '.' && !fraction) {
+                fraction = true;
+                continue;
+            }
+            if (ch < '0' || ch > '9') {
+                break;
+            }
+            any = true;
+            if (man != 0 || ch != '0') {
+                if (digits == 19) {
+                    return fallback(s, chars, start, end, single);
+                }
+                man = man * 10 + (ch - '0');
+                digits++;
+            }
+            if (fraction) {
+                exp10--;
+            }
+        }
+        if (!any) {
+            return fallback(s, chars, start, end, single);
+        }
+        if (i < end && (charAt(s, chars, i) == 'e' || charAt(s, chars, i) == 'E')) {
+            i++;
+            boolean negativeExp = false;
+            if (i < end && (charAt(s, chars, i) == '-' || charAt(s, chars, i) == '+')) {
+                negativeExp = charAt(s, chars, i) == '-';
+                i++;
+            }
+            if (i == end) {
+                return fallback(s, chars, start, end, single);
+            }
+            int exp = 0;
+            for (; i < end; i++) {
+                final char ch = charAt(s, chars, i);
+                if (ch < '0' || ch > '9') {
+                    break;
+                }
+                exp = exp * 10 + (ch - '0');
+                if (exp >= MAX_EXPONENT) {
+                    // The digits may shift the value back to the range, e.g. "0.<100000 zeros>1e100000".
+                    return fallback(s, chars, start, end, single);
+                }
+            }
+            exp10 += negativeExp ? -exp : exp;
+        }
+        if (i != end) {
+            return fallback(s, chars, start, end, single);
+        }
+        if (man == 0) {
+            return negative ? -0.0 : 0.0;
+        }
+        if (single) {
+            if (0 < man && man <= 1L << FLOAT_P && -FLOAT_POW10.length < exp10 && exp10 < FLOAT_POW10.length) {
+                float value = man;
+                value = exp10 < 0 ? value / FLOAT_POW10[-exp10] : value * FLOAT_POW10[exp10];
+                return negative ? -value : value;
+            }
+            final long bits = exp10 < MIN_EXP10 || exp10 > MAX_EXP10 ? -1 : eiselLemire32(man, exp10);
+            if (bits < 0) {
+                return fallback(s, chars, start, end, single);
+            }
+            final float value = Float.intBitsToFloat((int) bits);
+            return negative ? -value : value;
+        }
+        if (0 < man && man <= 1L << DOUBLE_P && -DOUBLE_POW10.length < exp10 && exp10 < DOUBLE_POW10.length) {
+            double value = man;
+            value = exp10 < 0 ? value / DOUBLE_POW10[-exp10] : value * DOUBLE_POW10[exp10];
+            return negative ? -value : value;
+        }
+        final long bits = exp10 < MIN_EXP10 || exp10 > MAX_EXP10 ? -1 : eiselLemire64(man, exp10);
+        if (bits < 0) {
+            return fallback(s, chars, start, end, single);
+        }
+        final double value = Double.longBitsToDouble(bits);
+        return negative ? -value : value;
+    }
+
+    private static char charAt(final CharSequence s, final char[] chars, final int index) {
+        return chars != null ? chars[index] : s.charAt(index);
+    }
+
+    private static void checkRange(final char[] chars, final int off, final int len) {
+        if (off < 0 || len < 0 || off > chars.length - len) {
+            throw new IndexOutOfBoundsException("Offset: " + off + ", length: " + len + ", array length: " + chars.length);
+        }
+    }
+
+    private static double fallback(final CharSequence s, final char[] chars, final int start, final int end, final boolean single) {
+        final String text = chars != null ? new String(chars, start, end - start) : s.subSequence(start, end).toString();
+        return single ? Float.parseFloat(text) : Double.parseDouble(text);
+    }
+
+    /**
+     * Eisel-Lemire algorithm for double.
+     *
+     * @param man The decimal significand, not 0.
+     * @param exp10 The decimal exponent.
+     * @return The bits of the correctly rounded positive double or -1 if the algorithm cannot decide
+     *         (or the result is subnormal or infinite).
+     */
+    private static long eiselLemire64(final long man, final int exp10) {
+        final int clz = Long.numberOfLeadingZeros(man);
+        final long normalized = man << clz;
+        long retExp2 = ((217706L * exp10) >> 16) + 64 + 1023 - clz;
+        final int index = exp10 - MIN_EXP10;
+        long xHi = unsignedMultiplyHigh(normalized, POW10_HI[index]);
+        long xLo = normalized * POW10_HI[index];
+        if ((xHi & 0x1FF) == 0x1FF && Long.compareUnsigned(xLo + normalized, normalized) < 0) {
+            final long yHi = unsignedMultiplyHigh(normalized, POW10_LO[index]);
+            final long yLo = normalized * POW10_LO[index];
+            long mergedHi = xHi;
+            final long mergedLo = xLo + yHi;
+            if (Long.compareUnsigned(mergedLo, xLo) < 0) {
+                mergedHi++;
+            }
+            if ((mergedHi & 0x1FF) == 0x1FF && mergedLo + 1 == 0 && Long.compareUnsigned(yLo + normalized, normalized) < 0) {
+                return -1;
+            }
+            xHi = mergedHi;
+            xLo = mergedLo;
+        }
+        final int msb = (int) (xHi >>> 63);
+        long retMantissa = xHi >>> (msb + 9);
+        retExp2 -= 1 ^ msb;
+        if (xLo == 0 && (xHi & 0x1FF) == 0 && (retMantissa & 3) == 1) {
+            return -1;
+        }
+        retMantissa += retMantissa & 1;
+        retMantissa >>>= 1;
+        if (retMantissa >>> 53 > 0) {
+            retMantissa >>>= 1;
+            retExp2++;
+        }
+        if (retExp2 <= 0 || retExp2 >= 0x7FF) {
+            return -1;
+        }
+        return retExp2 << 52 | retMantissa & ((1L << 52) - 1);
+    }
+
+    /**
+     * Eisel-Lemire algorithm for float.
+     *
+     * @param man The decimal significand, not 0.
+     * @param exp10 The decimal exponent.
+     * @return The bits of the correctly rounded positive float or -1 if the algorithm cannot decide
+     *         (or the result is subnormal or infinite).
+     */
+    private static long eiselLemire32(final long man, final int exp10) {
+        final int clz = Long.numberOfLeadingZeros(man);
+        final long normalized = man << clz;
+        long retExp2 = ((217706L * exp10) >> 16) + 64 + 127 - clz;
+        final int index = exp10 - MIN_EXP10;
+        long xHi = unsignedMultiplyHigh(normalized, POW10_HI[index]);
+        long xLo = normalized * POW10_HI[index];
+        if ((xHi & 0x3FFFFFFFFFL) == 0x3FFFFFFFFFL && Long.compareUnsigned(xLo + normalized, normalized) < 0) {
+            final long yHi = unsignedMultiplyHigh(normalized, POW10_LO[index]);
+            final long yLo = normalized * POW10_LO[index];
+            long mergedHi = xHi;
+            final long mergedLo = xLo + yHi;
+            if (Long.compareUnsigned(mergedLo, xLo) < 0) {
+                mergedHi++;
+            }
+            if ((mergedHi & 0x3FFFFFFFFFL) == 0x3FFFFFFFFFL && mergedLo + 1 == 0 && Long.compareUnsigned(yLo + normalized, normalized) < 0) {
+                return -1;
+            }
+            xHi = mergedHi;
+            xLo = mergedLo;
+        }
+        final int msb = (int) (xHi >>> 63);
+        long retMantissa = xHi >>> (msb + 38);
+        retExp2 -= 1 ^ msb;
+        if (xLo == 0 && (xHi & 0x3FFFFFFFFFL) == 0 && (retMantissa & 3) == 1) {
+            return -1;
+        }
+        retMantissa += retMantissa & 1;
+        retMantissa >>>= 1;
+        if (retMantissa >>> 24 > 0) {
+            retMantissa >>>= 1;
+            retExp2++;
+        }
+        if (retExp2 <= 0 || retExp2 >= 0xFF) {
+            return -1;
+        }
+        return retExp2 << 23 | retMantissa & ((1L << 23) - 1);
+    }
+
+    /**
+     * Schubfach algorithm for double: finds the shortest decimal in the rounding interval of c 2^q.
+     */
+    private static int toDecimal(final int q, final long c, final int dk, final char[] chars, final byte[] bytes, final int pos) {
+        final int out = (int) c & 0x1;
+        final long cb = c << 2;
+        final long cbr = cb + 2;
+        final long cbl;
+        final int k;
+        if (c != DOUBLE_C_MIN | q == DOUBLE_Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        final int h = q + flog2pow10(-k) + 2;
+        final long g1 = g1(k);
+        final long g0 = g0(k);
+        final long vb = rop(g1, g0, cb << h);
+        final long vbl = rop(g1, g0, cbl << h);
+        final long vbr = rop(g1, g0, cbr << h);
+        final long s = vb >> 2;
+        if (s >= 100) {
+            final long sp10 = 10 * multiplyHigh(s, 115292150460684698L << 4);
+            final long tp10 = sp10 + 10;
+            final boolean upin = vbl + out <= sp10 << 2;
+            final boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return layout(upin ? sp10 : tp10, k, chars, bytes, pos);
+            }
+        }
+        final long t = s + 1;
+        final boolean uin = vbl + out <= s << 2;
+        final boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return layout(uin ? s : t, k + dk, chars, bytes, pos);
+        }
+        final long cmp = vb - (s + t << 1);
+        return layout(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, chars, bytes, pos);
+    }
+
+    /**
+     * Schubfach algorithm for float: finds the shortest decimal in the rounding interval of c 2^q.
+     */
+    private static int toDecimal(final int q, final int c, final int dk, final char[] chars, final byte[] bytes, final int pos) {
+        final int out = c & 0x1;
+        final long cb = (long) c << 2;
+        final long cbr = cb + 2;
+        final long cbl;
+        final int k;
+        if (c != FLOAT_C_MIN | q == FLOAT_Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        final int h = q + flog2pow10(-k) + 33;
+        final long g = g1(k) + 1;
+        final int vb = rop(g, cb << h);
+        final int vbl = rop(g, cbl << h);
+        final int vbr = rop(g, cbr << h);
+        final int s = vb >> 2;
+        if (s >= 100) {
+            final int sp10 = 10 * (int) (s * 1717986919L >>> 34);
+            final int tp10 = sp10 + 10;
+            final boolean upin = vbl + out <= sp10 << 2;
+            final boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                return layout(upin ? sp10 : tp10, k, chars, bytes, pos);
+            }
+        }
+        final int t = s + 1;
+        final boolean uin = vbl + out <= s << 2;
+        final boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            return layout(uin ? s : t, k + dk, chars, bytes, pos);
+        }
+        final int cmp = vb - (s + t << 1);
+        return layout(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk, chars, bytes, pos);
+    }
+
+    private static long rop(final long g1, final long g0, final long cp) {
+        final long x1 = multiplyHigh(g0, cp);
+        final long y0 = g1 * cp;
+        final long y1 = multiplyHigh(g1, cp);
+        final long z = (y0 >>> 1) + x1;
+        final long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    private static int rop(final long g, final long cp) {
+        final long x1 = multiplyHigh(g, cp);
+        final long vbp = x1 >>> 31;
+        return (int) (vbp | (x1 & MASK_32) + MASK_32 >>> 32);
+    }
+
+    /**
+     * @return The high 63 bits of g = floor(10^(-k) 2^(-r)) + 1 where 2^125 &lt;= g &lt; 2^126.
+     */
+    private static long g1(final int k) {
+        final int index = -k - MIN_EXP10;
+        final long lo = (POW10_LO[index] >>> 2 | POW10_HI[index] << 62) + 1;
+        final long hi = (POW10_HI[index] >>> 2) + (lo == 0 ? 1 : 0);
+        return hi << 1 | lo >>> 63;
+    }
+
+    /**
+     * @return The low 63 bits of g = floor(10^(-k) 2^(-r)) + 1 where 2^125 &lt;= g &lt; 2^126.
+     */
+    private static long g0(final int k) {
+        final int index = -k - MIN_EXP10;
+        return (POW10_LO[index] >>> 2 | POW10_HI[index] << 62) + 1 & MASK_63;
+    }
+
+    /** @return floor(log10(2^e)) */
+    private static int flog10pow2(final int e) {
+        return (int) (e * 661971961083L >> 41);
+    }
+
+    /** @return floor(log10(3/4 2^e)) */
+    private static int flog10threeQuartersPow2(final int e) {
+        return (int) (e * 661971961083L + -274743187321L >> 41);
+    }
+
+    /** @return floor(log2(10^e)) */
+    private static int flog2pow10(final int e) {
+        return (int) (e * 913124641741L >> 38);
+    }
+
+    /**
+     * @return The high 64 bits of the signed 128 bit product (Math.multiplyHigh of Java 9).
+     */
+    private static long multiplyHigh(final long x, final long y) {
+        final long x1 = x >> 32;
+        final long x2 = x & MASK_32;
+        final long y1 = y >> 32;
+        final long y2 = y & MASK_32;
+        final long z2 = x2 * y2;
+        final long t = x1 * y2 + (z2 >>> 32);
+        long z1 = t & MASK_32;
+        final long z0 = t >> 32;
+        z1 += x2 * y1;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+
+    /**
+     * @return The high 64 bits of the unsigned 128 bit product.
+     */
+    private static long unsignedMultiplyHigh(final long x, final long y) {
+        return multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+
+    /**
+     * Writes f 10^e in the format of {@link Double#toString(double)}: plain notation between 10^-3 (inclusive)
+     * and 10^7 (exclusive), computerized scientific notation otherwise. The characters are written into the
+     * char or the byte array, whichever is not <tt>null</tt>.
+     */
+    private static int layout(final long significand, final int exponent, final char[] chars, final byte[] bytes, final int off) {
+        long f = significand;
+        int e = exponent;
+        while (f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        int len = 1;
+        for (long rest = f / 10; rest != 0; rest /= 10) {
+            len++;
+        }
+        final int exp = e + len - 1;
+        int pos = off;
+        if (0 <= exp && exp < 7) {
+            if (len <= exp + 1) {
+                pos = digits(f, len, 0, chars, bytes, pos);
+                for (int i = len; i <= exp; i++) {
+                    pos = put('0', chars, bytes, pos);
+                }
+                return put(".0", chars, bytes, pos);
+            }
+            return digits(f, len, exp + 1, chars, bytes, pos);
+        }
+        if (-3 <= exp && exp < 0) {
+            pos = put("0.", chars, bytes, pos);
+            for (int i = -1; i > exp; i--) {
+                pos = put('0', chars, bytes, pos);
+            }
+            return digits(f, len, 0, chars, bytes, pos);
+        }
+        if (len == 1) {
+            pos = put((char) ('0' + f), chars, bytes, pos);
+            pos = put(".0", chars, bytes, pos);
+        } else {
+            pos = digits(f, len, 1, chars, bytes, pos);
+        }
+        pos = put('E', chars, bytes, pos);
+        int abs = exp;
+        if (exp < 0) {
+            pos = put('-', chars, bytes, pos);
+            abs = -exp;
+        }
+        if (abs >= 100) {
+            pos = put((char) ('0' + abs / 100), chars, bytes, pos);
+            abs %= 100;
+            pos = put((char) ('0' + abs / 10), chars, bytes, pos);
+        } else if (abs >= 10) {
+            pos = put((char) ('0' + abs / 10), chars, bytes, pos);
+        }
+        return put((char) ('0' + abs % 10), chars, bytes, pos);
+    }
+
+    /**
+     * Writes the digits of f with a decimal point after the given number of digits (no point if it is 0).
+     */
+    private static int digits(final long f, final int len, final int point, final char[] chars, final byte[] bytes, final int off) {
+        final int end = off + len + (point > 0 ? 1 : 0);
+        long rest = f;
+        int pos = end;
+        for (int d = 0; d < len; d++) {
+            if (d == len - point) {
+                put('.', chars, bytes, --pos);
+            }
+            put((char) ('0' + rest % 10), chars, bytes, --pos);
+            rest /= 10;
+        }
+        return end;
+    }
+
+    private static int put(final String s, final char[] chars, final byte[] bytes, final int off) {
+        int pos = off;
+        for (int i = 0; i < s.length(); i++) {
+            pos = put(s.charAt(i), chars, bytes, pos);
+        }
+        return pos;
+    }
+
+    /**
+     * Writes an ASCII character into the char or the byte array, whichever is not <tt>null</tt>.
+     * @return The index after the character.
+     */
+    private static int put(final char ch, final char[] chars, final byte[] bytes, final int pos) {
+        if (chars != null) {
+            chars[pos] = ch;
+        } else {
+            bytes[pos] = (byte) ch;
+        }
+        return pos + 1;
+    }
+
+    /** Hidden constructor of utility class. */
+    private FloatingPoint() { /* NOP */ }
+
+}
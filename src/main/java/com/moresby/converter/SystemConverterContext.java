@@ -31,11 +31,41 @@
 package com.moresby.converter;
 
 /**
- * TODO javadoc.
+ * {@link ConverterContext} with the predefined converters of {@link Converters} registered.
  *
  * @author Barnabas Sudy (barnabas.sudy@gmail.com)
  * @since 2012
  */
-public class SystemConverterContext {
+public class SystemConverterContext extends ConverterContext {
+
+    /**
+     * The priority of the binary converters. It is lower than the default, so the routes between
+     * the numeric types go through their String representation instead of reinterpreting the bytes.
+     */
+    private static final int BINARY_PRIORITY = -1;
+
+    /** Creates a context with the predefined converters. */
+    public SystemConverterContext() {
+        registerConverter(Converters.TRIM);
+        registerConverter(Converters.STRING_TO_INTEGER);
+        registerConverter(Converters.STRING_TO_LONG);
+        registerConverter(Converters.STRING_TO_FLOAT);
+        registerConverter(Converters.STRING_TO_DOUBLE);
+        registerConverter(Converters.INTEGER_TO_STRING);
+        registerConverter(Converters.LONG_TO_STRING);
+        registerConverter(Converters.FLOAT_TO_STRING);
+        registerConverter(Converters.DOUBLE_TO_STRING);
+        registerConverter(Converters.NUMBER_TO_STRING);
+        registerConverter(Converters.STRING_TO_UTF8, BINARY_PRIORITY);
+        registerConverter(Converters.UTF8_TO_STRING, BINARY_PRIORITY);
+        registerConverter(Converters.INT_TO_BYTE, BINARY_PRIORITY);
+        registerConverter(Converters.LONG_TO_BYTE, BINARY_PRIORITY);
+        registerConverter(Converters.FLOAT_TO_BYTE, BINARY_PRIORITY);
+        registerConverter(Converters.DOUBLE_TO_BYTE, BINARY_PRIORITY);
+        registerConverter(Converters.BYTE_TO_INT, BINARY_PRIORITY);
+        registerConverter(Converters.BYTE_TO_LONG, BINARY_PRIORITY);
+        registerConverter(Converters.BYTE_TO_FLOAT, BINARY_PRIORITY);
+        registerConverter(Converters.BYTE_TO_DOUBLE, BINARY_PRIORITY);
+    }
 
 }
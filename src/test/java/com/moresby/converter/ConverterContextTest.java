@@ -30,8 +30,27 @@
  */
 package com.moresby.converter;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Collections;
+
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.moresby.converter.ConverterContext.Routing;
+import com.moresby.converter.ConverterContext.Search;
 
 /**
  * TODO javadoc.
@@ -41,6 +60,10 @@ import org.junit.Test;
  */
 public class ConverterContextTest {
 
+    /** The folder of the route plans. */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     /**
      * @throws java.lang.Exception
      */
@@ -56,4 +79,269 @@ public class ConverterContextTest {
         new ConverterContext().registerConverter(Converters.TRIM);
     }
 
+    /**
+     * Test method for {@link com.moresby.converter.ConverterContext#convert(Object, Class)}.
+     */
+    @Test
+    public void testConvertDirect() {
+        final ConverterContext context = new SystemConverterContext();
+        assertEquals(Long.valueOf(12), context.convert("12", Long.class));
+        assertEquals("a", context.convert(" a ", String.class));
+        assertEquals("1.5", context.convert(Double.valueOf(1.5), String.class));
+        assertNull(context.convert(null, Long.class));
+    }
+
+    /**
+     * Test method for the binary round trip in {@link SystemConverterContext}.
+     */
+    @Test
+    public void testConvertBinaryRoundTrip() {
+        final ConverterContext context = new SystemConverterContext();
+        assertEquals(Integer.valueOf(42), context.convert(context.convert(Integer.valueOf(42), byte[].class), Integer.class));
+        assertEquals(Double.valueOf(-0.1), context.convert(context.convert(Double.valueOf(-0.1), byte[].class), Double.class));
+        assertEquals("abcd", context.convert(context.convert("abcd", byte[].class), String.class));
+    }
+
+    /**
+     * Test method for the routing of {@link com.moresby.converter.ConverterContext}.
+     */
+    @Test
+    public void testConvertRoute() {
+        final ConverterContext context = new SystemConverterContext();
+        assertEquals(Integer.valueOf(7), context.convert(Long.valueOf(7), Integer.class));
+        assertEquals(Float.valueOf(2.5f), context.convert(Double.valueOf(2.5), Float.class));
+        for (final Routing routing : Routing.values()) {
+            for (final Search search : Search.values()) {
+                context.setRouting(routing);
+                context.setSearch(search);
+                assertEquals(Long.valueOf(5), context.convert("5", Long.class));
+                if (routing != Routing.NONE) {
+                    assertEquals(Integer.valueOf(7), context.convert(Long.valueOf(7), Integer.class));
+                }
+            }
+        }
+        context.setRouting(Routing.NONE);
+        try {
+            context.convert(Long.valueOf(7), Integer.class);
+            fail();
+        } catch (final ConverterException e) {
+            // expected
+        }
+        assertNull(context.getConverter(Long.class, Integer.class));
+    }
+
+    /**
+     * Test method for {@link com.moresby.converter.ConverterContext#freeze()}.
+     */
+    @Test
+    public void testFreeze() {
+        final ConverterContext context = new SystemConverterContext();
+        context.freeze();
+        assertTrue(context.isFrozen());
+        assertEquals(Integer.valueOf(7), context.convert(Long.valueOf(7), Integer.class));
+        assertEquals("x", context.convert(" x", String.class));
+        assertEquals("[a]", context.convert(Collections.singletonList("a"), Object.class).toString());
+        try {
+            context.registerConverter(Converters.TRIM);
+            fail();
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test method for {@link com.moresby.converter.ConverterContext#loadRoutePlan(File)}.
+     * @throws IOException If the plan cannot be written.
+     */
+    @Test
+    public void testRoutePlan() throws IOException {
+        final File plan = folder.newFile("routes.plan");
+        final ConverterContext context = new SystemConverterContext();
+        context.freeze();
+        context.writeRoutePlan(plan);
+
+        final ConverterContext loaded = new SystemConverterContext();
+        assertTrue(loaded.loadRoutePlan(plan));
+        assertTrue(loaded.isFrozen());
+        assertEquals(Float.valueOf(2.5f), loaded.convert(Double.valueOf(2.5), Float.class));
+
+        final ConverterContext changed = new SystemConverterContext();
+        changed.registerConverter(Converters.STRINGS_TO_LONG_COLUMN);
+        assertFalse(changed.loadRoutePlan(plan));
+        assertFalse(changed.isFrozen());
+
+        final ConverterContext otherRouting = new SystemConverterContext();
+        otherRouting.setRouting(Routing.BRUTE_FORCE);
+        assertFalse(otherRouting.loadRoutePlan(plan));
+    }
+
+    /**
+     * Test method for {@link com.moresby.converter.ConverterContext#loadRoutePlan(File)} with an other converter
+     * class between the same types and with a corrupted route.
+     */
+    @Test
+    public void testRoutePlanValidation() throws IOException {
+        final File plan = folder.newFile("single.plan");
+        final ConverterContext context = new ConverterContext();
+        context.registerConverter(Converters.STRING_TO_LONG);
+        context.freeze();
+        context.writeRoutePlan(plan);
+
+        final ConverterContext replaced = new ConverterContext();
+        replaced.registerConverter(new Converter<String, Long>() {
+            @Override
+            public Long convert(final String from) {
+                return Long.valueOf(from.trim());
+            }
+        });
+        assertTrue(replaced.loadRoutePlan(plan));
+        assertEquals(Long.valueOf(4), replaced.convert(" 4 ", Long.class));
+
+        // The routes (String-String, String-Long, Long-String, Long-Long) close the file: 0, 1 0, -1, 0.
+        // Replace the identity of Long-Long with the String to Long converter, which does not accept a Long.
+        final byte[] bytes = Files.readAllBytes(plan.toPath());
+        final ByteBuffer corrupted = ByteBuffer.allocate(bytes.length + 4);
+        corrupted.put(bytes, 0, bytes.length - 20).putInt(0).putInt(1).putInt(0).putInt(-1).putInt(1).putInt(0);
+        Files.write(plan.toPath(), corrupted.array());
+        final ConverterContext loaded = new ConverterContext();
+        loaded.registerConverter(Converters.STRING_TO_LONG);
+        assertFalse(loaded.loadRoutePlan(plan));
+        assertFalse(loaded.isFrozen());
+    }
+
+    /**
+     * Test method for {@link com.moresby.converter.ConverterContext#createChild()}.
+     */
+    @Test
+    public void testChildOverride() {
+        final ConverterContext parent = new SystemConverterContext();
+        parent.freeze();
+        final ConverterContext plain = parent.createChild();
+        assertSame(parent.getConverter(Long.class, Integer.class), plain.getConverter(Long.class, Integer.class));
+
+        final ConverterContext child = parent.createChild();
+        child.registerConverter(new Converter<Number, String>() {
+            @Override
+            public String convert(final Number from) {
+                return "#" + from;
+            }
+        });
+        assertEquals("#1.5", child.convert(Double.valueOf(1.5), String.class));
+        assertEquals("1.5", parent.convert(Double.valueOf(1.5), String.class));
+        assertEquals("#7", child.convert(Long.valueOf(7), String.class));
+        assertEquals("x", child.convert(" x ", String.class));
+        assertEquals(Long.valueOf(3), child.convert("3", Long.class));
+    }
+
+    /**
+     * Test method for a child which overrides a converter of the parent with an other priority.
+     */
+    @Test
+    public void testChildOverridePriority() {
+        final ConverterContext parent = new ConverterContext();
+        parent.registerConverter(Converters.STRING_TO_INTEGER);
+        parent.registerConverter(Converters.STRING_TO_LONG);
+        assertEquals(Integer.valueOf(5), parent.convert("5", Number.class));
+
+        final ConverterContext child = parent.createChild();
+        child.registerConverter(Converters.STRING_TO_LONG, 10);
+        final ConverterContext flat = new ConverterContext();
+        flat.registerConverter(Converters.STRING_TO_INTEGER);
+        flat.registerConverter(Converters.STRING_TO_LONG);
+        flat.registerConverter(Converters.STRING_TO_LONG, 10);
+        assertEquals(Long.valueOf(5), flat.convert("5", Number.class));
+        assertEquals(Long.valueOf(5), child.convert("5", Number.class));
+        assertEquals(Integer.valueOf(5), parent.convert("5", Number.class));
+    }
+
+    /**
+     * Test method for a child which follows the routing of its parent.
+     */
+    @Test
+    public void testChildRouting() {
+        final ConverterContext parent = new SystemConverterContext();
+        final ConverterContext child = parent.createChild();
+        child.registerConverter(Converters.TRIM, 1);
+        assertEquals(Integer.valueOf(7), child.convert(Long.valueOf(7), Integer.class));
+        parent.setRouting(ConverterContext.Routing.NONE);
+        assertEquals(ConverterContext.Routing.NONE, child.getRouting());
+        assertNull(child.getConverter(Long.class, Integer.class));
+        child.setRouting(ConverterContext.Routing.AUTO);
+        assertEquals(Integer.valueOf(7), child.convert(Long.valueOf(7), Integer.class));
+        assertNull(parent.getConverter(Long.class, Integer.class));
+        child.setSearch(ConverterContext.Search.DEPTH_FIRST);
+        assertEquals(ConverterContext.Search.BREADTH_FIRST, parent.getSearch());
+    }
+
+    /**
+     * Test method for the identity route to a supertype of the source.
+     */
+    @Test
+    public void testConvertSupertype() {
+        final ConverterContext context = new SystemConverterContext();
+        final Integer five = Integer.valueOf(5);
+        assertSame(five, context.convert(five, Object.class));
+        assertSame(five, context.convert(five, Comparable.class));
+        assertSame(five, context.convert(five, Serializable.class));
+        assertEquals(" a ", context.convert(" a ", CharSequence.class));
+        assertEquals("a", context.convert(" a ", String.class));
+        context.freeze();
+        assertSame(five, context.convert(five, Object.class));
+        assertEquals(" a ", context.convert(" a ", CharSequence.class));
+    }
+
+    /**
+     * Test method for the routes of a child which adds new types.
+     */
+    @Test
+    public void testChildNewRoute() {
+        final ConverterContext parent = new SystemConverterContext();
+        final ConverterContext child = new ConverterContext(parent);
+        child.registerConverter(new Converter<Boolean, String>() {
+            @Override
+            public String convert(final Boolean from) {
+                return from.booleanValue() ? "1" : "0";
+            }
+        });
+        assertEquals(Long.valueOf(1), child.convert(Boolean.TRUE, Long.class));
+        assertNull(parent.getConverter(Boolean.class, Long.class));
+    }
+
+    /**
+     * Test method for the invalidation of the routes of a child when the parent changes.
+     */
+    @Test
+    public void testChildInvalidation() {
+        final ConverterContext parent = new ConverterContext();
+        parent.registerConverter(Converters.STRING_TO_LONG);
+        final ConverterContext child = parent.createChild();
+        child.registerConverter(Converters.TRIM);
+        assertNull(child.getConverter(String.class, byte[].class));
+        parent.registerConverter(Converters.LONG_TO_BYTE);
+        assertEquals(8, child.convert("1", byte[].class).length);
+        try {
+            child.freeze();
+            fail();
+        } catch (final IllegalStateException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test method for {@link com.moresby.converter.ConverterContext#registerConverter(Converter, int)}.
+     */
+    @Test
+    public void testPriority() {
+        final ConverterContext context = new ConverterContext();
+        context.registerConverter(Converters.TRIM);
+        context.registerConverter(new Converter<String, String>() {
+            @Override
+            public String convert(final String from) {
+                return from.toUpperCase();
+            }
+        }, 1);
+        assertEquals("A ", context.convert("a ", String.class));
+        assertEquals(Integer.valueOf(1), context.convert(Integer.valueOf(1), Number.class));
+    }
+
 }
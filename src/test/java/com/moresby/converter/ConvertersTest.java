@@ -0,0 +1,213 @@
+/*
+ * Moresby Coffee Bean
+ *
+ * Copyright (c) 2012, Barnabas Sudy (barnabas.sudy@gmail.com)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those
+ * of the authors and should not be interpreted as representing official policies,
+ * either expressed or implied, of the FreeBSD Project.
+ */
+package com.moresby.converter;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests of the predefined converters of {@link Converters}.
+ *
+ * @author Barnabas Sudy (barnabas.sudy@gmail.com)
+ * @since 2012
+ */
+public class ConvertersTest {
+
+    /**
+     * Test method for {@link Converters#STRINGS_TO_LONG_COLUMN}.
+     */
+    @Test
+    public void testStringsToLongColumn() {
+        final LongColumn column = Converters.STRINGS_TO_LONG_COLUMN.convert(Arrays.asList("1", null, "-9223372036854775808"));
+        assertEquals(3, column.size());
+        assertEquals(1, column.nullCount());
+        assertEquals(1L, column.getLong(0));
+        assertTrue(column.isNull(1));
+        assertFalse(column.isNull(2));
+        assertEquals(Long.MIN_VALUE, column.getLong(2));
+        assertNull(Converters.STRINGS_TO_LONG_COLUMN.convert(null));
+    }
+
+    /**
+     * Test method for {@link Converters#toIntColumn(String[])}.
+     */
+    @Test
+    public void testToIntColumn() {
+        final IntColumn column = Converters.toIntColumn(new String[] {null, "42"});
+        assertTrue(column.isNull(0));
+        assertEquals(0, column.getInt(0));
+        assertEquals(42, column.getInt(1));
+        try {
+            Converters.toIntColumn(new String[] {"1", "x"});
+            fail();
+        } catch (final ConverterException e) {
+            assertEquals("Invalid value at index 1", e.getMessage());
+        }
+    }
+
+    /**
+     * Test method for {@link Converters#toDoubleColumn(String[])}.
+     */
+    @Test
+    public void testToDoubleColumn() {
+        final DoubleColumn column = Converters.toDoubleColumn(new String[] {"0.5", null, "9007199254740993"});
+        assertEquals(0.5, column.getDouble(0), 0.0);
+        assertTrue(column.isNull(1));
+        assertEquals(9007199254740992.0, column.getDouble(2), 0.0);
+        try {
+            column.getDouble(3);
+            fail();
+        } catch (final IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test method for {@link Converters#STRINGS_TO_DICTIONARY_COLUMN}.
+     */
+    @Test
+    public void testStringsToDictionaryColumn() {
+        final DictionaryColumn column = Converters.toDictionaryColumn(new String[] {" a", "b", null, "a "});
+        assertEquals(4, column.size());
+        assertEquals(2, column.dictionarySize());
+        assertEquals(column.getCode(0), column.getCode(3));
+        assertEquals("a", column.getString(3));
+        assertEquals("b", column.getString(1));
+        assertTrue(column.isNull(2));
+        assertEquals(DictionaryColumn.NULL_CODE, column.getCode(2));
+        assertNull(column.getString(2));
+    }
+
+    /**
+     * Test method for the binary decoders of {@link Converters}.
+     */
+    @Test
+    public void testBinaryRoundTrip() {
+        for (final int value : new int[] {0, 1, -1, Integer.MIN_VALUE, Integer.MAX_VALUE, 0x12345678}) {
+            assertEquals(Integer.valueOf(value), Converters.BYTE_TO_INT.convert(Converters.INT_TO_BYTE.convert(value)));
+        }
+        for (final long value : new long[] {0L, -1L, Long.MIN_VALUE, Long.MAX_VALUE, 0x0123456789abcdefL}) {
+            assertEquals(Long.valueOf(value), Converters.BYTE_TO_LONG.convert(Converters.LONG_TO_BYTE.convert(value)));
+        }
+        for (final float value : new float[] {0f, -0f, 1.5f, Float.NaN, Float.MIN_VALUE, Float.NEGATIVE_INFINITY}) {
+            assertEquals(Float.floatToRawIntBits(value),
+                Float.floatToRawIntBits(Converters.BYTE_TO_FLOAT.convert(Converters.FLOAT_TO_BYTE.convert(value))));
+        }
+        for (final double value : new double[] {0d, -0d, Math.PI, Double.NaN, Double.MIN_VALUE, Double.MAX_VALUE}) {
+            assertEquals(Double.doubleToRawLongBits(value),
+                Double.doubleToRawLongBits(Converters.BYTE_TO_DOUBLE.convert(Converters.DOUBLE_TO_BYTE.convert(value))));
+        }
+        assertNull(Converters.BYTE_TO_INT.convert(null));
+        try {
+            Converters.BYTE_TO_INT.convert(new byte[8]);
+            fail();
+        } catch (final ConverterException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Test method for {@link Converters#toLong(ByteBuffer, int)} and {@link Converters#toInt(byte[], int)}.
+     */
+    @Test
+    public void testDecodeAtOffset() {
+        final byte[] bytes = new byte[13];
+        System.arraycopy(Converters.LONG_TO_BYTE.convert(-42L), 0, bytes, 1, 8);
+        System.arraycopy(Converters.INT_TO_BYTE.convert(7), 0, bytes, 9, 4);
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(-42L, Converters.toLong(buffer, 1));
+        assertEquals(7, Converters.toInt(buffer, 9));
+        assertEquals(0, buffer.position());
+        assertEquals(-42L, Converters.toLong(bytes, 1));
+        assertEquals(7, Converters.toInt(bytes, 9));
+    }
+
+    /**
+     * Test method for {@link ByteReader}.
+     */
+    @Test
+    public void testByteReader() {
+        final ByteBuffer buffer = ByteBuffer.allocate(24);
+        buffer.putInt(3).putLong(Long.MIN_VALUE).putFloat(0.25f).putDouble(-1.5);
+        final ByteReader reader = new ByteReader(buffer.array());
+        assertEquals(3, reader.readInt());
+        assertEquals(Long.MIN_VALUE, reader.readLong());
+        assertEquals(0.25f, reader.readFloat(), 0f);
+        assertEquals(-1.5, reader.readDouble(), 0d);
+        assertFalse(reader.hasRemaining());
+        try {
+            reader.readInt();
+            fail();
+        } catch (final ConverterException e) {
+            // expected
+        }
+        assertEquals(-1.5, reader.reset(buffer.array(), 16, 8).readDouble(), 0d);
+        assertArrayEquals(Converters.INT_TO_BYTE.convert(3), Arrays.copyOf(buffer.array(), 4));
+    }
+
+    /**
+     * Test method for {@link ByteReader#ByteReader(ByteBuffer)} with direct and heap buffers.
+     */
+    @Test
+    public void testByteReaderBuffer() {
+        final ByteBuffer direct = ByteBuffer.allocateDirect(16);
+        direct.putInt(9).putLong(-2L).putFloat(1.25f).flip();
+        direct.order(ByteOrder.LITTLE_ENDIAN).position(4);
+        final ByteReader reader = new ByteReader(direct);
+        assertEquals(-2L, reader.readLong());
+        assertEquals(1.25f, reader.readFloat(), 0f);
+        assertFalse(reader.hasRemaining());
+        assertEquals(4, direct.position());
+        final ByteBuffer heap = ByteBuffer.allocate(12).putInt(5).putInt(6).putInt(7);
+        heap.position(4);
+        assertEquals(6, reader.reset(heap.slice()).readInt());
+        assertEquals(4, reader.remaining());
+        assertEquals(4, reader.position());
+
+        final ByteBuffer sliced = ByteBuffer.wrap(new byte[20], 4, 8).slice();
+        sliced.putInt(0, 11).putInt(4, 12).position(4);
+        assertEquals(4, reader.reset(sliced).position());
+        assertEquals(12, reader.readInt());
+        assertEquals(8, reader.position());
+        assertEquals(4, reader.reset(direct).position());
+    }
+
+}
@@ -0,0 +1,263 @@
+/*
+ * Moresby Coffee Bean
+ *
+ * Copyright (c) 2012, Barnabas Sudy (barnabas.sudy@gmail.com)
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ *
+ * The views and conclusions contained in the software and documentation are those
+ * of the authors and should not be interpreted as representing official policies,
+ * either expressed or implied, of the FreeBSD Project.
+ */
+package com.moresby.converter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link FloatingPoint}.
+ *
+ * @author Barnabas Sudy (barnabas.sudy@gmail.com)
+ * @since 2012
+ */
+public class FloatingPointTest {
+
+    /** The number of the random values per test. */
+    private static final int COUNT = 200000;
+
+    /**
+     * Test method for {@link FloatingPoint#toString(double)}.
+     */
+    @Test
+    public void testDoubleFormat() {
+        assertEquals("0.0", FloatingPoint.toString(0.0));
+        assertEquals("-0.0", FloatingPoint.toString(-0.0));
+        assertEquals("NaN", FloatingPoint.toString(Double.NaN));
+        assertEquals("-Infinity", FloatingPoint.toString(Double.NEGATIVE_INFINITY));
+        assertEquals("1.0", FloatingPoint.toString(1.0));
+        assertEquals("123.456", FloatingPoint.toString(123.456));
+        assertEquals("9999999.0", FloatingPoint.toString(9999999.0));
+        assertEquals("1.0E7", FloatingPoint.toString(1e7));
+        assertEquals("0.001", FloatingPoint.toString(0.001));
+        assertEquals("1.0E-4", FloatingPoint.toString(1e-4));
+        assertEquals("0.002", FloatingPoint.toString(2e-3));
+        assertEquals("1.0E23", FloatingPoint.toString(1e23));
+        assertEquals("4.9E-324", FloatingPoint.toString(Double.MIN_VALUE));
+        assertEquals("2.2250738585072014E-308", FloatingPoint.toString(Double.MIN_NORMAL));
+        assertEquals("-1.7976931348623157E308", FloatingPoint.toString(-Double.MAX_VALUE));
+    }
+
+    /**
+     * Test method for {@link FloatingPoint#toString(float)}.
+     */
+    @Test
+    public void testFloatFormat() {
+        assertEquals("0.0", FloatingPoint.toString(0f));
+        assertEquals("1.1", FloatingPoint.toString(1.1f));
+        assertEquals("1.6777216E7", FloatingPoint.toString(16777216f));
+        assertEquals("1.4E-45", FloatingPoint.toString(Float.MIN_VALUE));
+        assertEquals("1.1754944E-38", FloatingPoint.toString(Float.MIN_NORMAL));
+        assertEquals("3.4028235E38", FloatingPoint.toString(Float.MAX_VALUE));
+    }
+
+    /**
+     * Test method for the buffer variants of the formatting.
+     */
+    @Test
+    public void testFormatBuffers() {
+        final char[] chars = new char[FloatingPoint.MAX_DOUBLE_LENGTH + 1];
+        assertEquals(25, FloatingPoint.toChars(-Double.MIN_NORMAL, chars, 1));
+        assertEquals("-2.2250738585072014E-308", new String(chars, 1, 24));
+        final byte[] bytes = new byte[FloatingPoint.MAX_FLOAT_LENGTH];
+        assertEquals(14, FloatingPoint.toBytes(-Float.MIN_NORMAL, bytes, 0));
+        assertEquals("-1.1754944E-38", new String(bytes, 0, 14));
+        assertEquals(4, FloatingPoint.toBytes(0.25, bytes, 0));
+        assertEquals("0.25", new String(bytes, 0, 4));
+        assertEquals("x=0.5;1.0E10", FloatingPoint.append(FloatingPoint.append(new StringBuilder("x="), 0.5f).append(';'), 1e10).toString());
+        assertEquals(12, FloatingPoint.toBytes(Double.NEGATIVE_INFINITY, bytes, 3));
+        assertEquals("-Infinity", new String(bytes, 3, 9));
+    }
+
+    /**
+     * Test method for the char array variants of the parsing.
+     */
+    @Test
+    public void testParseBuffers() {
+        final char[] chars = "x1.5e3;0x1p-2;2.5".toCharArray();
+        assertEquals(1500.0, FloatingPoint.parseDouble(chars, 1, 5), 0.0);
+        assertEquals(0.25, FloatingPoint.parseDouble(chars, 7, 6), 0.0);
+        assertEquals(2.5f, FloatingPoint.parseFloat(chars, 14, 3), 0f);
+        try {
+            FloatingPoint.parseDouble(chars, 15, 3);
+            fail();
+        } catch (final IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Bit exact round trip of random doubles through the formatting and both parsers,
+     * and check that no shorter decimal represents the same value.
+     */
+    @Test
+    public void testDoubleRoundTrip() {
+        final Random random = new Random(1);
+        final char[] chars = new char[FloatingPoint.MAX_DOUBLE_LENGTH];
+        for (int i = 0; i < COUNT; i++) {
+            final long bits = random.nextLong();
+            final double value = Double.longBitsToDouble(bits);
+            final int len = FloatingPoint.toChars(value, chars, 0);
+            final String text = new String(chars, 0, len);
+            if (value != value) {
+                assertEquals("NaN", text);
+                continue;
+            }
+            assertEquals(text, bits, Double.doubleToRawLongBits(FloatingPoint.parseDouble(chars, 0, len)));
+            assertEquals(text, bits, Double.doubleToRawLongBits(Double.parseDouble(text)));
+            if (i % 16 == 0) {
+                assertShortest(value, text);
+            }
+        }
+    }
+
+    /**
+     * Bit exact round trip of floats sampled evenly over all the bit patterns, and of all the floats
+     * around the smallest subnormal and around the boundary of the subnormal and normal floats.
+     */
+    @Test
+    public void testFloatRoundTrip() {
+        final char[] chars = new char[FloatingPoint.MAX_FLOAT_LENGTH];
+        for (long bits = 0; bits <= 0xffffffffL; bits += 4093) {
+            assertFloatRoundTrip((int) bits, chars);
+        }
+        for (int bits = 0; bits < 1 << 16; bits++) {
+            assertFloatRoundTrip(bits, chars);
+            assertFloatRoundTrip(Float.floatToRawIntBits(Float.MIN_NORMAL) - (1 << 15) + bits, chars);
+        }
+    }
+
+    /**
+     * Test method for {@link FloatingPoint#parseDouble(CharSequence)} and {@link FloatingPoint#parseFloat(CharSequence)}
+     * with random decimals: the results have to be the same as the results of the JDK.
+     */
+    @Test
+    public void testParseRandom() {
+        final Random random = new Random(2);
+        for (int i = 0; i < COUNT; i++) {
+            final StringBuilder sb = new StringBuilder();
+            if (random.nextBoolean()) {
+                sb.append('-');
+            }
+            final int digits = 1 + random.nextInt(22);
+            for (int d = 0; d < digits; d++) {
+                sb.append((char) ('0' + random.nextInt(10)));
+            }
+            if (random.nextBoolean()) {
+                sb.insert(sb.length() - random.nextInt(digits), '.');
+            }
+            if (random.nextBoolean()) {
+                sb.append(random.nextBoolean() ? 'e' : 'E').append(random.nextInt(720) - 360);
+            }
+            final String text = sb.toString();
+            assertEquals(text, Double.doubleToRawLongBits(Double.parseDouble(text)), Double.doubleToRawLongBits(FloatingPoint.parseDouble(text)));
+            assertEquals(text, Float.floatToRawIntBits(Float.parseFloat(text)), Float.floatToRawIntBits(FloatingPoint.parseFloat(text)));
+        }
+    }
+
+    /**
+     * Test method for {@link FloatingPoint#parseDouble(CharSequence)} with the inputs handled by the fallback.
+     */
+    @Test
+    public void testParseSpecial() {
+        for (final String text : new String[] {"1e23", "9007199254740993", "2.2250738585072011e-308", "4.9e-324", "2.4703282292062328e-324",
+                "1.7976931348623158e308", "1e-400", "1e400", " 1.5 ", "1.5d", "2f", "NaN", "-Infinity", "0x1.8p1", ".5", "5.", "-0",
+                "123456789012345678901234567890", "0.000000000000000000000000000001",
+                "0." + new String(new char[100000]).replace('\0', '0') + "1e1000000", "1e-1000000", "1e2147483648"}) {
+            assertEquals(text, Double.doubleToRawLongBits(Double.parseDouble(text)), Double.doubleToRawLongBits(FloatingPoint.parseDouble(text)));
+            assertEquals(text, Float.floatToRawIntBits(Float.parseFloat(text)), Float.floatToRawIntBits(FloatingPoint.parseFloat(text)));
+        }
+        for (final String text : new String[] {"", "-", ".", "1e", "1e+", "1..2", "1-", "e5", "abc"}) {
+            try {
+                FloatingPoint.parseDouble(text);
+                fail(text);
+            } catch (final NumberFormatException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Test method for the floating point converters of {@link Converters}.
+     */
+    @Test
+    public void testConverters() {
+        assertEquals("1.0E23", Converters.DOUBLE_TO_STRING.convert(1e23));
+        assertEquals("0.1", Converters.FLOAT_TO_STRING.convert(0.1f));
+        assertEquals(Double.valueOf(0.1), Converters.STRING_TO_DOUBLE.convert("0.1"));
+        assertEquals("1.0E23", new SystemConverterContext().convert(Double.valueOf(1e23), String.class));
+        try {
+            Converters.STRING_TO_FLOAT.convert("x");
+            fail();
+        } catch (final ConverterException e) {
+            // expected
+        }
+    }
+
+    private static void assertFloatRoundTrip(final int bits, final char[] chars) {
+        final float value = Float.intBitsToFloat(bits);
+        if (value != value) {
+            return;
+        }
+        final int len = FloatingPoint.toChars(value, chars, 0);
+        final String text = new String(chars, 0, len);
+        assertEquals(text, bits, Float.floatToRawIntBits(FloatingPoint.parseFloat(chars, 0, len)));
+        assertEquals(text, bits, Float.floatToRawIntBits(Float.parseFloat(text)));
+    }
+
+    /**
+     * Checks that the value cannot be represented by a decimal with less significant digits.
+     */
+    private static void assertShortest(final double value, final String text) {
+        if (value == 0 || Double.isInfinite(value)) {
+            return;
+        }
+        final BigDecimal decimal = new BigDecimal(text);
+        final int digits = decimal.stripTrailingZeros().precision();
+        if (digits == 1) {
+            return;
+        }
+        final BigDecimal exact = new BigDecimal(value);
+        for (final RoundingMode mode : new RoundingMode[] {RoundingMode.FLOOR, RoundingMode.CEILING}) {
+            final BigDecimal shorter = exact.round(new MathContext(digits - 1, mode));
+            assertFalse(text + " / " + shorter, shorter.doubleValue() == value);
+        }
+    }
+
+}